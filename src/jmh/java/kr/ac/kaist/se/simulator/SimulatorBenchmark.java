@@ -0,0 +1,48 @@
+package kr.ac.kaist.se.simulator;
+
+import mci.model.Hospital;
+import mci.scenario.MCIScenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One whole run of the legacy simulator on the MCI scenario, the way Executor samples it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class SimulatorBenchmark {
+    @Param({"100"})
+    public int nPatient;
+
+    @Param({"6000"})
+    public int endTick;
+
+    private MCIScenario scenario;
+    private Simulator sim;
+    private NormalDistributor distributor;
+
+    @Setup
+    public void setup() {
+        this.distributor = new NormalDistributor();
+        this.distributor.setNormalDistParams(1500, 400);
+
+        Hospital.clearMap();
+        this.scenario = new MCIScenario(this.endTick, this.nPatient);
+        this.sim = new Simulator(this.scenario);
+    }
+
+    @Benchmark
+    public SIMResult execute() {
+        this.scenario.init(); // The map is cleared by every reset
+        ArrayList<Integer> list = this.distributor.getDistributionArray(this.scenario.getActionList().size());
+        this.sim.setActionPlan(list);
+        this.sim.execute();
+
+        SIMResult res = this.sim.getResult();
+        this.sim.reset();
+        return res;
+    }
+}
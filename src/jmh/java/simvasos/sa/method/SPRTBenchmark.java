@@ -0,0 +1,49 @@
+package simvasos.sa.method;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one stopping decision after a given number of samples.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class SPRTBenchmark {
+    @Param({"10", "100", "1000"})
+    public int nSample;
+
+    @Param({"0.5"})
+    public double theta;
+
+    private SPRT sprt;
+    private LogSPRT logSprt;
+
+    @Setup
+    public void setup() {
+        this.sprt = new SPRT();
+        this.logSprt = new LogSPRT();
+        this.sprt.reset(0.05, 0.05, 0.01, this.theta);
+        this.logSprt.reset(0.05, 0.05, 0.01, this.theta);
+
+        // Samples right at theta keep the test undecided, as it is for most of a real run
+        Random random = new Random(1);
+        for (int i = 0; i < this.nSample; i++) {
+            boolean sample = random.nextDouble() < this.theta;
+            this.sprt.addSample(sample);
+            this.logSprt.addSample(sample);
+        }
+    }
+
+    @Benchmark
+    public boolean sprt() {
+        return this.sprt.isSampleNeeded();
+    }
+
+    @Benchmark
+    public boolean logSprt() {
+        return this.logSprt.isSampleNeeded();
+    }
+}
@@ -0,0 +1,41 @@
+package simvasos.scenario.mciresponse;
+
+import org.openjdk.jmh.annotations.*;
+import simvasos.scenario.mciresponse.MCIResponseScenario.SoSType;
+import simvasos.simulation.Simulator;
+import simvasos.simulation.component.World;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One tick of an MCI response world in steady state, i.e. the ABC+ decision loop of every agent.
+ * Run with the gc profiler; gc.alloc.rate.norm is the allocation per tick.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class MCIResponseTickBenchmark {
+    private static final int TICKS = 100; // Per invocation, so that the scratch buffers of a run are amortized
+
+    @Param({"Directed", "Acknowledged", "Collaborative", "Virtual"})
+    public SoSType type;
+
+    @Param({"100"})
+    public int warmupTime; // Ticks simulated before measuring, so that pools and lists reached their size
+
+    private World world;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        this.world = new MCIResponseScenario(this.type, 100, 4, 4, 1).getWorld();
+        this.world.setSeed(1);
+        Simulator.record(this.world, this.warmupTime);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public int tick() {
+        Simulator.advance(this.world, this.world.getTime() + TICKS);
+        return this.world.getTime();
+    }
+}
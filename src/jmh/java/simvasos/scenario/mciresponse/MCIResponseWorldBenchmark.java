@@ -0,0 +1,90 @@
+package simvasos.scenario.mciresponse;
+
+import org.openjdk.jmh.annotations.*;
+import simvasos.modelparsing.modeling.ABCPlus.ABCPlusCS;
+import simvasos.scenario.mciresponse.MCIResponseScenario.SoSType;
+import simvasos.simulation.component.Agent;
+import simvasos.simulation.component.Message;
+import simvasos.simulation.util.Location;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message delivery in the shapes the MCI agents use: a broadcast to a group, an order to one agent,
+ * and a message to the agents standing at a location. Also a reset of the world, as before every sample.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class MCIResponseWorldBenchmark {
+    private static final int CLEAR_INTERVAL = 1024; // Delivered messages are dropped now and then, not on every send
+
+    @Param({"4", "16"})
+    public int nFireFighter;
+
+    private MCIResponseWorld world;
+    private int sent = 0;
+
+    private Message broadcast;
+    private Message order;
+    private Message located;
+
+    @Setup
+    public void setup() {
+        this.world = (MCIResponseWorld) new MCIResponseScenario(SoSType.Acknowledged, 100, this.nFireFighter, 0, 1).getWorld();
+        this.world.reset();
+
+        this.broadcast = new Message();
+        this.broadcast.name = "Share pullout belief";
+        this.broadcast.sender = "ControlTower";
+        this.broadcast.receiver = "FireFighter";
+        this.broadcast.purpose = Message.Purpose.Delivery;
+
+        this.order = new Message();
+        this.order.name = "Order heading location";
+        this.order.sender = "ControlTower";
+        this.order.receiver = "FireFighter1";
+        this.order.purpose = Message.Purpose.Order;
+        this.order.put(MessageKeys.HEADING_LOCATION, new Location(0, 0));
+
+        this.located = new Message();
+        this.located.name = "Request pullout";
+        this.located.sender = "ControlTower";
+        this.located.receiver = "FireFighter";
+        this.located.location = new Location(0, 0); // Fire fighters start at (0, 0)
+        this.located.purpose = Message.Purpose.ReqAction;
+    }
+
+    private void send(Message message) {
+        this.world.sendMessage(message);
+
+        if (++this.sent % CLEAR_INTERVAL == 0)
+            for (Agent agent : this.world.getAgents())
+                if (agent instanceof ABCPlusCS)
+                    ((ABCPlusCS) agent).clearMessages();
+    }
+
+    @Benchmark
+    public int broadcast() {
+        send(this.broadcast);
+        return this.world.messageCnt;
+    }
+
+    @Benchmark
+    public int order() {
+        send(this.order);
+        return this.world.messageCnt;
+    }
+
+    @Benchmark
+    public int located() {
+        send(this.located);
+        return this.world.messageCnt;
+    }
+
+    @Benchmark
+    public MCIResponseWorld reset() {
+        this.world.reset();
+        return this.world;
+    }
+}
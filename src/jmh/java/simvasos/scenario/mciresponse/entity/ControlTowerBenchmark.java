@@ -0,0 +1,48 @@
+package simvasos.scenario.mciresponse.entity;
+
+import org.openjdk.jmh.annotations.*;
+import simvasos.scenario.mciresponse.MCIResponseScenario;
+import simvasos.scenario.mciresponse.MCIResponseScenario.SoSType;
+import simvasos.simulation.Simulator;
+import simvasos.simulation.component.Agent;
+import simvasos.simulation.component.World;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatch of heading locations to every fire fighter by the control tower, from the state reached after some
+ * simulated time, on the default map and on a 200x200 map.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class ControlTowerBenchmark {
+    @Param({"4", "200"})
+    public int nFireFighter;
+
+    @Param({"0", "50"})
+    public int warmupTime;
+
+    @Param({"49", "200"})
+    public int mapSize;
+
+    private ControlTower controlTower;
+
+    @Setup
+    public void setup() {
+        World world = new MCIResponseScenario(SoSType.Directed, 100, this.nFireFighter, 0, 0, this.mapSize, this.mapSize).getWorld();
+        world.setSeed(1);
+        Simulator.record(world, this.warmupTime);
+
+        for (Agent agent : world.getAgents())
+            if (agent instanceof ControlTower)
+                this.controlTower = (ControlTower) agent;
+    }
+
+    @Benchmark
+    public ControlTower dispatch() {
+        this.controlTower.dispatch(SoSType.Directed);
+        this.controlTower.progress(); // Drops the directives
+        return this.controlTower;
+    }
+}
@@ -0,0 +1,51 @@
+package simvasos.scenario.mciresponse.entity;
+
+import org.openjdk.jmh.annotations.*;
+import simvasos.scenario.mciresponse.MCIResponseScenario;
+import simvasos.scenario.mciresponse.MCIResponseScenario.SoSType;
+import simvasos.simulation.Simulator;
+import simvasos.simulation.component.Agent;
+import simvasos.simulation.component.World;
+import simvasos.simulation.util.Location;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heading selection of a fire fighter, from the state reached after some simulated time.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class FireFighterBenchmark {
+    @Param({"100", "500"})
+    public int nPatient;
+
+    @Param({"0", "50"})
+    public int warmupTime; // Later in a run, more of the map is already pulled out
+
+    private FireFighter fireFighter;
+
+    @Setup
+    public void setup() {
+        World world = new MCIResponseScenario(SoSType.Virtual, this.nPatient, 4, 0, 0).getWorld();
+        world.setSeed(1);
+        Simulator.execute(world, this.warmupTime);
+
+        for (Agent agent : world.getAgents())
+            if (agent instanceof FireFighter) {
+                this.fireFighter = (FireFighter) agent;
+                break;
+            }
+    }
+
+    @Benchmark
+    public Location findHeadingLocation() {
+        return this.fireFighter.findHeadingLocation();
+    }
+
+    @Benchmark
+    public Location scanHeadingLocation() {
+        // Baseline: a full scan of the map
+        return FireFighter.findHeadingLocation(this.fireFighter.getLocation(), this.fireFighter.beliefMap, this.fireFighter.expectedPatientsMap);
+    }
+}
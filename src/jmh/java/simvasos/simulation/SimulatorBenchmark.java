@@ -0,0 +1,83 @@
+package simvasos.simulation;
+
+import org.openjdk.jmh.annotations.*;
+import simvasos.scenario.mciresponse.MCIResponseScenario;
+import simvasos.scenario.mciresponse.MCIResponseScenario.SoSType;
+import simvasos.scenario.robot.RobotScenario;
+import simvasos.simulation.analysis.Snapshot;
+import simvasos.simulation.component.World;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One whole simulation run per operation, with a new seed every run.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SimulatorBenchmark {
+
+    @State(Scope.Thread)
+    public static class Robot {
+        @Param({"3"})
+        public int nRobot;
+
+        @Param({"11"})
+        public int endOfTime;
+
+        World world;
+        long seed = 0;
+
+        @Setup
+        public void setup() {
+            this.world = new RobotScenario(this.nRobot).getWorld();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class MCI {
+        @Param({"Virtual", "Acknowledged"})
+        public SoSType type;
+
+        @Param({"100", "500"})
+        public int nPatient;
+
+        @Param({"4", "16"})
+        public int nFireFighter;
+
+        @Param({"100"})
+        public int endOfTime;
+
+        World world;
+        long seed = 0;
+
+        @Setup
+        public void setup() {
+            this.world = new MCIResponseScenario(this.type, this.nPatient, this.nFireFighter, 0, 0).getWorld();
+        }
+    }
+
+    @Benchmark
+    public ArrayList<Snapshot> robot(Robot state) {
+        state.world.setSeed(state.seed++);
+        return Simulator.execute(state.world, state.endOfTime);
+    }
+
+    @Benchmark
+    public ArrayList<Snapshot> mciResponse(MCI state) {
+        state.world.setSeed(state.seed++);
+        return Simulator.execute(state.world, state.endOfTime);
+    }
+
+    @Benchmark
+    public ArrayList<Snapshot> robotEvent(Robot state) {
+        state.world.setSeed(state.seed++);
+        return EventSimulator.execute(state.world, state.endOfTime);
+    }
+
+    @Benchmark
+    public ArrayList<Snapshot> mciResponseEvent(MCI state) {
+        state.world.setSeed(state.seed++);
+        return EventSimulator.execute(state.world, state.endOfTime);
+    }
+}
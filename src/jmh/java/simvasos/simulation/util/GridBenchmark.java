@@ -0,0 +1,80 @@
+package simvasos.simulation.util;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Maptrix against the flat grids, on the map size and the uses of the MCI response world:
+ * a read of every cell of the expected patients map and a reset of the patients map.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class GridBenchmark {
+    private static final int SIZE = 49;
+    @SuppressWarnings("unchecked") // Erased: ArrayList.class is the class of any ArrayList
+    private static final Class<ArrayList<Object>> LIST_CLASS = (Class<ArrayList<Object>>) (Class<?>) ArrayList.class;
+
+    private Maptrix<Integer> intMaptrix;
+    private IntGrid intGrid;
+
+    private Maptrix<ArrayList<Object>> listMaptrix;
+    private ObjectGrid<ArrayList<Object>> listGrid;
+
+    @Setup
+    public void setup() {
+        this.intMaptrix = new Maptrix<Integer>(Integer.TYPE, SIZE, SIZE);
+        this.intGrid = new IntGrid(SIZE, SIZE);
+        for (int x = 0; x < SIZE; x++)
+            for (int y = 0; y < SIZE; y++) {
+                this.intMaptrix.setValue(x, y, x * y % 7);
+                this.intGrid.setValue(x, y, x * y % 7);
+            }
+
+        this.listMaptrix = new Maptrix<ArrayList<Object>>(LIST_CLASS, SIZE, SIZE);
+        this.listGrid = new ObjectGrid<ArrayList<Object>>(SIZE, SIZE, () -> new ArrayList<Object>());
+    }
+
+    @Benchmark
+    public int readMaptrix() {
+        int sum = 0;
+        for (int x = 0; x < SIZE; x++)
+            for (int y = 0; y < SIZE; y++)
+                sum += this.intMaptrix.getValue(x, y);
+
+        return sum;
+    }
+
+    @Benchmark
+    public int readIntGrid() {
+        int sum = 0;
+        for (int x = 0; x < SIZE; x++)
+            for (int y = 0; y < SIZE; y++)
+                sum += this.intGrid.getValue(x, y);
+
+        return sum;
+    }
+
+    @Benchmark
+    public Object resetMaptrix() {
+        this.listMaptrix.reset(); // A reflective instantiation per cell
+        return this.listMaptrix;
+    }
+
+    @Benchmark
+    public Object resetObjectGrid() {
+        this.listGrid.reset(); // A factory call per cell
+        return this.listGrid;
+    }
+
+    @Benchmark
+    public Object clearObjectGrid() {
+        // What the world does on reset: the lists of the cells are kept and emptied
+        for (int cell = 0; cell < this.listGrid.size(); cell++)
+            this.listGrid.getValueAt(cell).clear();
+
+        return this.listGrid;
+    }
+}
@@ -3,6 +3,8 @@ package christian;
 import kr.ac.kaist.se.simulator.BaseAction;
 import kr.ac.kaist.se.simulator.DebugProperty;
 
+import java.util.Random;
+
 /**
  * Movement.java
  * This class example is came from "Simulation and Statistical Model Checking of Logic-Based Multi-Agent System Models", Christian Kroib
@@ -50,7 +52,7 @@ public class Movement extends BaseAction {
     }
 
     @Override
-    public void randomGenerate() {
+    public void randomGenerate(Random random) {
         // Not-used
     }
 
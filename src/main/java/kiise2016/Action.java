@@ -3,6 +3,8 @@ package kiise2016;
 import kr.ac.kaist.se.simulator.BaseAction;
 import kr.ac.kaist.se.simulator.DebugProperty;
 
+import java.util.Random;
+
 public class Action extends BaseAction{
     private int additionalBenefit;
 
@@ -47,7 +49,7 @@ public class Action extends BaseAction{
     }
 
     @Override
-    public void randomGenerate() {
+    public void randomGenerate(Random random) {
         // Not-used
     }
 
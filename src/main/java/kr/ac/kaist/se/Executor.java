@@ -72,7 +72,6 @@ public class Executor {
             // undefined scenario
         }
         sim = new Simulator(bs);
-        sim.setDEBUG();
 
         CheckerInterface checker = null;
         if (args[0].startsWith("Robot")) {
@@ -90,6 +89,7 @@ public class Executor {
             // Undefined Checker
         }
         checker.init(args);
+        sim.setTraceProperties(checker.getTraceProperties()); // Only what the checker reads
 
         System.out.println("==========================================\n" +
                 "[ Simulation Description ]\n" +
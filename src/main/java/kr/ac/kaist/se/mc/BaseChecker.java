@@ -69,6 +69,14 @@ public class BaseChecker implements CheckerInterface{
         this.negation = false;
     }
 
+    /**
+     * Return the properties to trace, none: only the number of ticks and the SoS benefit are evaluated
+     */
+    @Override
+    public String[] getTraceProperties() {
+        return new String[0];
+    }
+
     /**
      * Evaluate the sample sequence based on the base tick and base SoS benefit
      * @param res Simulation result (sample sequence)
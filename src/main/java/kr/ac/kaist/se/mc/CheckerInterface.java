@@ -23,6 +23,7 @@ public interface CheckerInterface {
     String getDescription();
     void init(String[] params);
     int evaluateSample(SIMResult res);
+    String[] getTraceProperties(); // Debug properties evaluateSample reads from the SIMTrace of a result
     int getMinTick();
     int getMaxTick();
 }
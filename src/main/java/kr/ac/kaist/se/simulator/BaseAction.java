@@ -1,6 +1,7 @@
 package kr.ac.kaist.se.simulator;
 
 import java.util.ArrayList;
+import java.util.Random;
 
 /**
  * BaseAction.java
@@ -37,6 +38,9 @@ public abstract class BaseAction {
     private BaseConstituent performer = null; // Current performer
     private ArrayList<BaseConstituent> performerList = new ArrayList<>();
 
+    private Environment environment = null; // Environment whose registry holds this action, told of status changes
+    private int slot = -1;
+
     public BaseAction(){
         this.name = Integer.toString(hashCode()) + Integer.toString(ID);
         this.this_ID = ID++;
@@ -48,7 +52,7 @@ public abstract class BaseAction {
     }
 
     public void resetAction(){
-        this.status = BaseAction.Status.NOT_RAISED;
+        this.setStatus(BaseAction.Status.NOT_RAISED);
         this.remainTime = -1;
         this.performer= null;
     }
@@ -77,8 +81,16 @@ public abstract class BaseAction {
         return this.status;
     }
     public void setStatus(Status status){
+        if(this.environment != null)
+            this.environment.moveAction(this.slot, this.status, status);
         this.status = status;
     }
+
+    void register(Environment environment, int slot){
+        // An action is in the registry of one environment at a time, see Environment
+        this.environment = environment;
+        this.slot = slot;
+    }
     public void addPerformer(BaseConstituent performer){
         // 메소드가 너무 여러개 들어감
         if(!this.performerList.contains(performer))
@@ -131,13 +143,19 @@ public abstract class BaseAction {
         return this.name;
     }
 
+    public Object getDebugValue(String key){
+        // A property of getDebugProperty, see BaseConstituent
+        DebugProperty prop = this.getDebugProperty();
+        return prop == null ? null : prop.getProperty(key);
+    }
+
     /*
      * Abstract methods
      */
     public abstract void addBenefit(int additionalBenefit);
     public abstract BaseAction clone();
     public abstract void reset();
-    public abstract void randomGenerate();
+    public abstract void randomGenerate(Random random);
     public abstract String getDebugTrace();
     public abstract DebugProperty getDebugProperty();
 }
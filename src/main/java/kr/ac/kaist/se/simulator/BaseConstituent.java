@@ -4,6 +4,7 @@ import kr.ac.kaist.se.simulator.method.DummyAction;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Locale;
 
 /**
  * BaseConstituent.java
@@ -37,12 +38,16 @@ public abstract class BaseConstituent {
     private BaseAction currentAction;
     private ArrayList<BaseAction> capabilityList = null;
     private HashMap<String, Integer> capabilityMap = null; // 각 CS의 Action 당 사용되는 cost <Action_name, cost>
+    private int capabilityVersion = 0; // Changed with the capability list, so that the environment renews its subscription
+    private HashMap<String, Integer> capabilityIndex = null; // Lowercase name -> index in the capability list, for delta updates
+    private boolean hasSharedCapabilityName = false; // Do capabilities share a name? Then a delta update scans the list
 
     protected BaseConstituent(){
         this.status = Status.IDLE;
         this.currentAction = null;
         this.capabilityList = new ArrayList<>();
         this.capabilityMap = new HashMap<>();
+        this.capabilityIndex = new HashMap<>();
     }
 
     protected void setType(Type type){
@@ -90,10 +95,47 @@ public abstract class BaseConstituent {
             }
         }
         this.capabilityList = newList;
+        this.capabilityVersion++;
+
+        this.capabilityIndex.clear();
+        this.hasSharedCapabilityName = false;
+        for(int i = 0; i < this.capabilityList.size(); i++)
+            this.indexCapability(i);
+    }
+
+    /**
+     * Delta of updateCapability(ArrayList): a single action of the environment changed since the last notification
+     * @param changedAction the action now in the environment under its name
+     */
+    public void updateCapability(BaseAction changedAction){
+        if(this.hasSharedCapabilityName){
+            for(int i = 0; i < this.capabilityList.size(); i++){
+                if(this.capabilityList.get(i).getName().equalsIgnoreCase(changedAction.getName()))
+                    this.capabilityList.set(i, changedAction);
+            }
+            return;
+        }
+
+        Integer i = this.capabilityIndex.get(changedAction.getName().toLowerCase(Locale.ROOT));
+        if(i != null)
+            this.capabilityList.set(i, changedAction);
+    }
+
+    private void indexCapability(int i){
+        // Names are compared ignoring case, as the environment looks actions up
+        String key = this.capabilityList.get(i).getName().toLowerCase(Locale.ROOT);
+        if(this.capabilityIndex.putIfAbsent(key, i) != null)
+            this.hasSharedCapabilityName = true;
+    }
+
+    public int getCapabilityVersion(){
+        return this.capabilityVersion;
     }
 
     public void addCapability(BaseAction a, int cost){
         this.capabilityList.add(a);
+        this.capabilityVersion++;
+        this.indexCapability(this.capabilityList.size() - 1);
         this.capabilityMap.put(a.getName(), cost);
         if(this.requiredMinimumBudget < cost)
             this.requiredMinimumBudget = cost;
@@ -158,6 +200,20 @@ public abstract class BaseConstituent {
         return null;
     }
 
+    /**
+     * getNextEventTime method
+     * Time until this CS changes its state by itself, e.g., completes its current action.
+     * The simulator may elapse up to this time in a single normalAction call.
+     * @return ticks to the next event, 1 if the CS decides at every tick, Integer.MAX_VALUE if it has none
+     */
+    public int getNextEventTime(){
+        if(this.getStatus() == Status.END)
+            return Integer.MAX_VALUE;
+        if(this.getStatus() == Status.OPERATING && this.currentAction != null)
+            return Math.max(this.currentAction.getRemainingTime(), 1);
+        return 1;
+    }
+
     public void setCurrentAction(BaseAction a){
         this.currentAction = a;
     }
@@ -178,6 +234,17 @@ public abstract class BaseConstituent {
         return debugTrace;
     }
 
+    /**
+     * getDebugValue method
+     * A property of getDebugProperty, e.g., to record only the properties a checker needs.
+     * @param key name of the property
+     * @return value of the property, null if there is none
+     */
+    public Object getDebugValue(String key){
+        DebugProperty prop = this.getDebugProperty();
+        return prop == null ? null : prop.getProperty(key);
+    }
+
     /*
      * Abstract methods
      */
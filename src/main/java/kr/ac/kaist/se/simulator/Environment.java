@@ -2,8 +2,14 @@ package kr.ac.kaist.se.simulator;
 
 import kr.ac.kaist.se.simulator.method.DummyAction;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Random;
 
 /**
  * Simulator for System of Systems
@@ -22,14 +28,39 @@ public final class Environment {
     private ArrayList<BaseAction> actionList = null; // 모든 Action List
 
     private boolean isAlreadyGenerated; // action이 매번 발생하는가? random하게 생성되는가?
-    private ArrayList<BaseAction> actionTemplate; // 랜덤하게 생성할 action 템플릿
+    private ArrayDeque<BaseAction> actionTemplate; // 랜덤하게 생성할 action 템플릿
+    private Random random = new Random(); // Draws of the randomly generated actions, see setSeed()
+
+    /**
+     * Registry of the actions: the slot of an action is its index in actionList.
+     * Slots are looked up by name, ignoring case, and indexed by status; an action tells its environment of its
+     * status changes (see BaseAction.setStatus()), so that the actions of a status are known without a scan.
+     * Names are unique and do not change once the action is in the list.
+     */
+    private HashMap<String, Integer> slotsByName = null;
+    private BitSet[] slotsByStatus = null; // Per BaseAction.Status
+
+    /**
+     * Delta notification: the slots whose action or status changed since the last notification, for the CSs and for
+     * the manager. A CS subscribes to the slots of its capabilities with a full update, renewed when its capabilities
+     * change, and is then given the changed actions of its slots only; the manager is given every changed action.
+     */
+    private BitSet changedForCS = new BitSet();
+    private BitSet changedForManager = new BitSet();
+    private BitSet[] subscriptions = null; // Per CS in csList, null until the first notification
+    private int[] subscribedVersions = null; // Capability version of each CS at subscription
+    private BaseConstituent subscribedManager = null;
+    private int subscribedManagerVersion;
 
     public Environment(BaseConstituent[] CSs, BaseAction[] actions){
         this.csList = new ArrayList<>();
         Collections.addAll(this.csList, CSs);
+        this.subscriptions = new BitSet[this.csList.size()];
+        this.subscribedVersions = new int[this.csList.size()];
         this.actionList = new ArrayList<>();
         Collections.addAll(this.actionList, actions);
         this.isAlreadyGenerated = false;
+        this.registerActions();
     }
 
     /**
@@ -51,11 +82,10 @@ public final class Environment {
          */
         if(!this.isAlreadyGenerated) {
             // Step 1
-            ArrayList<String> possibleActionList = new ArrayList<>();
-            for (BaseAction a : this.actionList) {
-                if (a.getStatus() == BaseAction.Status.NOT_RAISED)
-                    possibleActionList.add(a.getName());
-            }
+            BitSet notRaised = this.slotsByStatus[BaseAction.Status.NOT_RAISED.ordinal()];
+            ArrayList<BaseAction> possibleActionList = new ArrayList<>(notRaised.cardinality());
+            for (int i = notRaised.nextSetBit(0); i >= 0; i = notRaised.nextSetBit(i + 1))
+                possibleActionList.add(this.actionList.get(i));
 
             // Step 2 Randomly generate option
 
@@ -82,22 +112,13 @@ public final class Environment {
 //            }
 //        }
 
-            ArrayList<BaseAction> selectedActionList = new ArrayList<>();
-            for (String targetName : possibleActionList) {
-                for (BaseAction a : this.actionList) {
-                    if (a.getName().equalsIgnoreCase(targetName)) {
-                        a.setStatus(BaseAction.Status.RAISED);
-                        selectedActionList.add(a);
-                        break;
-                    }
-                }
-            }
-            updateActionStatus(selectedActionList);
+            for (BaseAction a : possibleActionList) // The actions stay in their slots, nothing to update
+                a.setStatus(BaseAction.Status.RAISED);
 
         }else{// Randomly generating the actions
             // 언제 발생할지는 알려져 있지만 어떻게 발생시킬지는 랜덤하게.
-            BaseAction nA = this.actionTemplate.remove(0); // Always same as the number of to be raised actions and the size of action template
-            nA.randomGenerate();
+            BaseAction nA = this.actionTemplate.removeFirst(); // Always same as the number of to be raised actions and the size of action template
+            nA.randomGenerate(this.random);
             nA.setStatus(BaseAction.Status.RAISED);
             updateActionStatus(nA);
         }
@@ -109,15 +130,46 @@ public final class Environment {
      * The CS which got the message will modify their available action list
      */
     public void notifyCS(){
-        for(BaseConstituent cs : this.csList){
-            cs.updateCapability(this.actionList);
+        for(int i = 0; i < this.csList.size(); i++){
+            BaseConstituent cs = this.csList.get(i);
+            if(this.subscriptions[i] == null || this.subscribedVersions[i] != cs.getCapabilityVersion()){
+                cs.updateCapability(this.actionList);
+                this.subscriptions[i] = this.subscribe(cs);
+                this.subscribedVersions[i] = cs.getCapabilityVersion();
+                continue;
+            }
+
+            BitSet subscription = this.subscriptions[i];
+            for(int slot = this.changedForCS.nextSetBit(0); slot >= 0; slot = this.changedForCS.nextSetBit(slot + 1)){
+                if(subscription.get(slot))
+                    cs.updateCapability(this.actionList.get(slot));
+            }
         }
+        this.changedForCS.clear();
     }
 
     public void notifyManager(BaseConstituent manager){
-        manager.updateCapability(this.actionList);
+        if(manager != this.subscribedManager || this.subscribedManagerVersion != manager.getCapabilityVersion()){
+            manager.updateCapability(this.actionList);
+            this.subscribedManager = manager;
+            this.subscribedManagerVersion = manager.getCapabilityVersion();
+        }else{
+            for(int slot = this.changedForManager.nextSetBit(0); slot >= 0; slot = this.changedForManager.nextSetBit(slot + 1))
+                manager.updateCapability(this.actionList.get(slot));
+        }
+        this.changedForManager.clear();
     }
 
+    private BitSet subscribe(BaseConstituent cs){
+        // The slots of the capabilities of the CS
+        BitSet subscription = new BitSet(this.actionList.size());
+        for(BaseAction a : cs.getCapability()){
+            Integer slot = this.slotsByName.get(a.getName().toLowerCase(Locale.ROOT));
+            if(slot != null)
+                subscription.set(slot);
+        }
+        return subscription;
+    }
 
     /**
      * Update the status of actions executed by CSs
@@ -125,15 +177,7 @@ public final class Environment {
      */
     public void updateActionStatus(ArrayList<BaseAction> actionList){
         for(BaseAction a : actionList){
-            if( a instanceof DummyAction )
-                continue;
-            String targetName = a.getName();
-            for(int i=0; i<this.actionList.size() ;i++){
-                if(this.actionList.get(i).getName().equalsIgnoreCase(targetName)){
-                    this.actionList.set(i, a);
-                    break;
-                }
-            }
+            updateActionStatus(a);
         }
     }
 
@@ -142,24 +186,74 @@ public final class Environment {
      * @param action a single action that are changed its status
      */
     public void updateActionStatus(BaseAction action){
-        for(int i = 0; i<this.actionList.size(); i++){
-            if(this.actionList.get(i).getName().equalsIgnoreCase(action.getName())){
-                if(action instanceof DummyAction)
-                    break;
-                this.actionList.set(i, action);
-                break;
-            }
+        if(action instanceof DummyAction)
+            return;
+        Integer slot = this.slotsByName.get(action.getName().toLowerCase(Locale.ROOT));
+        if(slot == null) // Not an action of this environment (e.g., the heal action of the hospital)
+            return;
+
+        BaseAction old = this.actionList.get(slot);
+        if(old != action){ // A copy of the action (e.g., generated from its template) takes its slot
+            this.unregisterAction(slot, old);
+            this.actionList.set(slot, action);
+            this.registerAction(slot, action);
+            this.changedForCS.set(slot);
+            this.changedForManager.set(slot);
         }
     }
 
+    void moveAction(int slot, BaseAction.Status from, BaseAction.Status to){
+        // Called by the action in the slot on a status change
+        if(from == to)
+            return;
+        this.changedForCS.set(slot);
+        this.changedForManager.set(slot);
+        if(from != null)
+            this.slotsByStatus[from.ordinal()].clear(slot);
+        if(to != null)
+            this.slotsByStatus[to.ordinal()].set(slot);
+    }
+
+    private void registerActions(){
+        this.slotsByName = new HashMap<>();
+        this.slotsByStatus = new BitSet[BaseAction.Status.values().length];
+        for(int i = 0; i < this.slotsByStatus.length; i++)
+            this.slotsByStatus[i] = new BitSet(this.actionList.size());
+
+        for(int i = 0; i < this.actionList.size(); i++){
+            BaseAction a = this.actionList.get(i);
+            this.slotsByName.putIfAbsent(a.getName().toLowerCase(Locale.ROOT), i); // The first one, as the name scan found
+            this.registerAction(i, a);
+        }
+    }
+
+    private void registerAction(int slot, BaseAction a){
+        a.register(this, slot);
+        this.moveAction(slot, null, a.getStatus());
+    }
+
+    private void unregisterAction(int slot, BaseAction a){
+        a.register(null, -1);
+        this.moveAction(slot, a.getStatus(), null);
+    }
+
     public void setPlannedGeneration(){
         this.isAlreadyGenerated = true;
-        this.actionTemplate = new ArrayList<>();
+        this.actionTemplate = new ArrayDeque<>(this.actionList.size());
         for(int i=0; i<this.actionList.size(); i++){
             this.actionTemplate.add(this.actionList.get(i).clone());
         }
     }
 
+    /**
+     * Seed the draws of the randomly generated actions, e.g., the locations of raised patients.
+     * The draws go on from run to run, so that the runs of a seed differ from each other.
+     * @param seed seed of the draws
+     */
+    public void setSeed(long seed){
+        this.random = new Random(seed);
+    }
+
     public void reset(){
         if(!this.isAlreadyGenerated) {
             ;
@@ -171,6 +265,13 @@ public final class Environment {
     }
 
     public void setActionList(ArrayList<BaseAction> actions){
+        for(int i = 0; i < this.actionList.size(); i++)
+            this.unregisterAction(i, this.actionList.get(i));
         this.actionList = actions;
+        this.registerActions();
+
+        // Every CS and the manager subscribe again, to the new slots
+        Arrays.fill(this.subscriptions, null);
+        this.subscribedManager = null;
     }
 }
@@ -41,6 +41,10 @@ public class NormalDistributor {
         this.stDev = stDev;
     }
 
+    public void setSeed(long seed){
+        this.distGenerator.reseedRandomGenerator(seed);
+    }
+
     public int getNextVal(){
         String _val = Double.toString(this.distGenerator.sample());
         BigDecimal dec = new BigDecimal(_val);
@@ -1,6 +1,7 @@
 package kr.ac.kaist.se.simulator;
 
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * SIMResult.java
@@ -27,6 +28,7 @@ public class SIMResult {
     private int numTicks;
     private int SoSBenefit;
     private HashMap<Integer, DebugTick> debugTraces;
+    private SIMTrace trace;
 
     public SIMResult(int numTicks, int SoSBenefit){
         this.numTicks = numTicks;
@@ -49,4 +51,47 @@ public class SIMResult {
         return this.debugTraces;
     }
 
+    public void setTrace(SIMTrace trace){
+        this.trace = trace;
+    }
+
+    public SIMTrace getTrace(){
+        return this.trace;
+    }
+
+    /**
+     * Trace of the given properties, e.g., those a checker declares (see CheckerInterface.getTraceProperties):
+     * the SIMTrace of the run if it recorded them, otherwise a projection of its debug traces (i.e., DEBUG mode)
+     * @param properties names of the properties
+     * @return trace of the properties
+     * @throws IllegalStateException if the run recorded neither
+     */
+    public SIMTrace getTrace(String[] properties){
+        if(this.trace != null && this.isRecorded(properties))
+            return this.trace;
+
+        if(this.debugTraces == null)
+            throw new IllegalStateException("No trace of " + String.join(", ", properties)
+                    + ": set them as trace properties of the simulator (see Simulator.setTraceProperties) or set DEBUG");
+
+        SIMTrace projection = new SIMTrace(properties);
+        for(DebugTick debugTick : this.debugTraces.values()){ // In the order of ticks
+            for(Map.Entry<String, DebugProperty> debugTrace : debugTick.getDebugInfoMap().entrySet()){
+                DebugProperty prop = debugTrace.getValue();
+                if(prop == null)
+                    continue;
+                for(String property : properties)
+                    projection.record(debugTick.getTimeTick(), property, debugTrace.getKey(), prop.getProperty(property));
+            }
+        }
+        return projection;
+    }
+
+    private boolean isRecorded(String[] properties){
+        for(String property : properties)
+            if(!this.trace.isRecorded(property))
+                return false;
+        return true;
+    }
+
 }
@@ -0,0 +1,139 @@
+package kr.ac.kaist.se.simulator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * SIMTrace.java
+
+ * Author: Junho Kim <jhkim@se.kaist.ac.kr>
+
+ * The MIT License (MIT)
+
+ * Copyright (c) 2016 Junho Kim
+
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions: TBD
+ */
+
+public class SIMTrace {
+    /*
+     * Projection of the debug traces onto the properties a checker needs (see CheckerInterface.getTraceProperties).
+     * At each step of the simulator, the value of a property of each CS or action that has it is recorded
+     * as (tick, name, value) into primitive arrays, in the order of ticks, instead of a DebugTick per tick.
+     * Integer values are recorded as they are, Boolean values as 0 or 1, and the others (e.g., strings)
+     * as indices into a symbol table.
+     */
+
+    private String[] properties;
+
+    private int[][] ticks; // Per property, per record
+    private int[][] names;
+    private int[][] values;
+    private int[] sizes;
+
+    private ArrayList<String> symbols = new ArrayList<>();
+    private HashMap<String, Integer> symbolIndex = new HashMap<>();
+
+    public SIMTrace(String[] properties){
+        this.properties = properties.clone();
+        this.ticks = new int[properties.length][16];
+        this.names = new int[properties.length][16];
+        this.values = new int[properties.length][16];
+        this.sizes = new int[properties.length];
+    }
+
+    public String[] getProperties(){
+        return this.properties.clone();
+    }
+
+    public boolean isRecorded(String property){
+        return this.indexOf(property) >= 0;
+    }
+
+    /**
+     * Record the value of a property of a CS or an action at a tick
+     * @param tick time tick of the step
+     * @param property name of the property, e.g., position
+     * @param name name of the CS or action
+     * @param value value of the property, not recorded if null
+     */
+    public void record(int tick, String property, String name, Object value){
+        if(value == null)
+            return;
+
+        if(value instanceof Integer)
+            this.record(tick, property, name, ((Integer) value).intValue());
+        else if(value instanceof Boolean)
+            this.record(tick, property, name, (Boolean) value ? 1 : 0);
+        else
+            this.record(tick, property, name, this.symbolOf(value.toString()));
+    }
+
+    public void record(int tick, String property, String name, int value){
+        int p = this.indexOf(property);
+        if(p < 0)
+            return;
+
+        int i = this.sizes[p]++;
+        if(i == this.ticks[p].length){
+            this.ticks[p] = Arrays.copyOf(this.ticks[p], 2 * i);
+            this.names[p] = Arrays.copyOf(this.names[p], 2 * i);
+            this.values[p] = Arrays.copyOf(this.values[p], 2 * i);
+        }
+        this.ticks[p][i] = tick;
+        this.names[p][i] = this.symbolOf(name);
+        this.values[p][i] = value;
+    }
+
+    /**
+     * Number of records of a property
+     * @param property name of the property
+     * @return 0 if the property is not recorded
+     */
+    public int size(String property){
+        int p = this.indexOf(property);
+        return p < 0 ? 0 : this.sizes[p];
+    }
+
+    public int getTick(String property, int i){
+        return this.ticks[this.indexOf(property)][i];
+    }
+
+    public String getName(String property, int i){
+        return this.symbols.get(this.names[this.indexOf(property)][i]);
+    }
+
+    public int getValue(String property, int i){
+        return this.values[this.indexOf(property)][i];
+    }
+
+    public String getString(String property, int i){
+        // For values recorded as symbols
+        return this.symbols.get(this.getValue(property, i));
+    }
+
+    private int indexOf(String property){
+        // A checker needs a few properties
+        for(int p = 0; p < this.properties.length; p++){
+            if(this.properties[p].equals(property))
+                return p;
+        }
+        return -1;
+    }
+
+    private int symbolOf(String symbol){
+        Integer index = this.symbolIndex.get(symbol);
+        if(index == null){
+            index = this.symbols.size();
+            this.symbols.add(symbol);
+            this.symbolIndex.put(symbol, index);
+        }
+        return index;
+    }
+}
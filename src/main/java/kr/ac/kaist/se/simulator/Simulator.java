@@ -24,9 +24,17 @@ public final class Simulator {
     private ArrayList<Integer> plannedActionTicks; // Raising actions following specific random distribution
     private boolean isPlanned; // Checking the is Planned actions?
     private boolean DEBUG; // DEBUG mode
+    private boolean isSelected; // Did a CS select an action in this step?
+    private boolean isTickByTick; // Step every tick instead of advancing to the next event?
+
+    private Random random = new Random(); // Shuffles the actions of a step
+    private Random seeds = null; // Seeds of the runs, if seeded, see setSeed()
+    private long runSeed;
 
     private HashMap<Integer, List<String>> debugTraces;
     private HashMap<Integer, DebugTick> debugTraceMap;
+    private String[] traceProperties; // Recorded into a SIMTrace, if any
+    private SIMTrace trace;
     private BaseScenario scenario;
 
     @Deprecated
@@ -84,12 +92,19 @@ public final class Simulator {
     private void procedure() {
         this.tick = 0;
         boolean endCondition = false;
+        if (this.DEBUG)
+            this.debugTraceMap = new LinkedHashMap<>(); // A trace per run, in the order of ticks
+        if (this.traceProperties != null)
+            this.trace = new SIMTrace(this.traceProperties);
+        if (this.seeds != null)
+            this.runSeed = this.seeds.nextLong();
 
         while (!endCondition) {
 //            System.out.println("World Time: " + this.tick);
             actions.clear();
 
             immediateActions.clear();
+            this.isSelected = false;
 
             // World actions first
             this.generateExogenousActions(); // World action
@@ -121,11 +136,15 @@ public final class Simulator {
                 }
             }
 
-            Collections.shuffle(immediateActions);
+            // Seeded per tick, so that the ticks skipped to the next event draw nothing
+            if (this.seeds != null)
+                this.random.setSeed(this.runSeed + this.tick);
+
+            Collections.shuffle(immediateActions, this.random);
             this.progress(BaseAction.TYPE.IMMEDIATE); // Choose
 
 
-            Collections.shuffle(actions);
+            Collections.shuffle(actions, this.random);
             this.progress(BaseAction.TYPE.NORMAL);
 
             if (this.DEBUG) {
@@ -146,6 +165,8 @@ public final class Simulator {
 
                 this.debugTraceMap.put(this.tick, debugTick);
             }
+            if (this.trace != null)
+                this.recordTrace();
 
             actions.clear();
             immediateActions.clear();
@@ -157,6 +178,25 @@ public final class Simulator {
         }
         this.result = new SIMResult(this.tick, SoSBenefit);
         if(this.DEBUG) this.result.setDebugTraces(this.debugTraceMap);
+        if(this.trace != null) this.result.setTrace(this.trace);
+    }
+
+    private void recordTrace() {
+        // Only the properties of the DebugTick of this step that are to be traced
+        for (String property : this.traceProperties) {
+            if (property.equals("SoS_level_benefit")) {
+                int SoS_benefit = 0;
+                for (BaseConstituent cs : this.csList)
+                    SoS_benefit += cs.getAccumulatedSoSBenefit();
+                this.trace.record(this.tick, property, property, SoS_benefit);
+                continue;
+            }
+
+            for (BaseConstituent cs : this.csList)
+                this.trace.record(this.tick, property, cs.getName(), cs.getDebugValue(property));
+            for (BaseAction a : this.actions)
+                this.trace.record(this.tick, property, a.getName(), a.getDebugValue(property));
+        }
     }
 
     private void increaseTick(int minimumElapsedTime) {
@@ -208,47 +248,30 @@ public final class Simulator {
             for (BaseAction a : actionList) {
                 if (a.getActionType() == BaseAction.TYPE.IMMEDIATE) {
                     BaseAction selectedAction = a.getPerformer().immediateAction(); // Select action
-                    if (selectedAction != null)
+                    if (selectedAction != null) {
 //                        System.out.println(a.getPerformer().getName() + ", Normal (Progress)");
                         actions.add(selectedAction);
+                        this.isSelected = true;
+                    }
                 }
             }
         } else if (type == BaseAction.TYPE.NORMAL) {
             /*
-             * 1. Calculate the minimum time to elapse among action list
+             * 1. Calculate the time to the next event
              * 2. Elapse the time and execute
              * 3. If the remaining time is 0, then update Cost & Benefit
              */
             ArrayList<BaseAction> actionList = this.actions;
-            int minimumElapsedTime = -1;
-            if (!actionList.isEmpty()) { // If the action list is not empty
-                boolean discreteCondition = true;
-                minimumElapsedTime = 1;
-                for (BaseConstituent CS : this.csList) { // To get all CS are in operation.
-                    if (CS.getStatus() != BaseConstituent.Status.OPERATING) {
-                        discreteCondition = false;
-                        break;
-                    }
-                }
-                if (!this.DEBUG && discreteCondition) { // To jump the tick
-                    for (BaseAction a : actionList) {// Calculate the minimum jump tick
-                        int rTime = a.getRemainingTime();
-                        if (minimumElapsedTime < rTime)
-                            minimumElapsedTime = rTime;
-                    }
+            int elapsedTime = this.getElapsedTime();
+            for (BaseAction a : actionList) { // List로 수정하면 이부분 수정해야함..
+                BaseConstituent[] tmpArr = a.getPerformerList().toArray(new BaseConstituent[a.getPerformerList().size()]);
+                for (int i = 0; i < tmpArr.length; i++) {
+                    // Real normal action happens.
+                    tmpArr[i].normalAction(elapsedTime);
                 }
-                for (BaseAction a : actionList) { // List로 수정하면 이부분 수정해야함..
-//                    a.getPerformer().normalAction(minimumElapsedTime);
-                    BaseConstituent[] tmpArr = a.getPerformerList().toArray(new BaseConstituent[a.getPerformerList().size()]);
-                    for (int i = 0; i < tmpArr.length; i++) {
-                        // Real normal action happens.
-                        tmpArr[i].normalAction(minimumElapsedTime);
-                    }
-                }
-            } else
-                minimumElapsedTime = 1;
+            }
 
-            increaseTick(minimumElapsedTime);
+            increaseTick(elapsedTime);
         }
         if (type == BaseAction.TYPE.IMMEDIATE) {
             env.updateActionStatus(immediateActions);
@@ -257,6 +280,29 @@ public final class Simulator {
         }
     }
 
+    /**
+     * Time to the next event, at which the simulator takes its next step:
+     * the earliest of the next events of the CSs (e.g., completions of their actions),
+     * the next planned exogenous action and the end tick.
+     * Until then, CSs only go on with their current actions, so the time elapses at once.
+     * @return ticks to elapse, at least 1
+     */
+    private int getElapsedTime() {
+        // Unplanned actions are raised at every tick, and a selection may open up others on the next tick
+        if (!this.isPlanned || this.isSelected || this.isTickByTick)
+            return 1;
+
+        int elapsedTime = this.endTick - this.tick;
+        if (!this.plannedActionTicks.isEmpty())
+            elapsedTime = Math.min(elapsedTime, this.plannedActionTicks.get(0) - this.tick);
+        for (BaseConstituent CS : this.csList)
+            elapsedTime = Math.min(elapsedTime, CS.getNextEventTime());
+        if (this.manager != null)
+            elapsedTime = Math.min(elapsedTime, this.manager.getNextEventTime());
+
+        return Math.max(elapsedTime, 1);
+    }
+
     public void setActionPlan(ArrayList<Integer> randomDistribution) {
         this.isPlanned = true;
         this.plannedActionTicks = randomDistribution;
@@ -270,9 +316,40 @@ public final class Simulator {
     public void setDEBUG() {
         this.DEBUG = true;
         this.debugTraces = new HashMap<>();
-        this.debugTraceMap = new HashMap<>();
+        this.debugTraceMap = new LinkedHashMap<>();
     }
 
+    /**
+     * Step every tick instead of advancing to the next event.
+     * With the same seed, a run is the same either way; its trace only has the skipped ticks in addition.
+     */
+    public void setTickByTick() {
+        this.isTickByTick = true;
+    }
+
+    /**
+     * Seed the random draws of the runs: the order of the actions of each step and the generated actions
+     * @param seed seed of the runs
+     */
+    public void setSeed(long seed) {
+        this.seeds = new Random(seed);
+        this.env.setSeed(this.seeds.nextLong());
+    }
+
+    /**
+     * Record the given properties at each step into the SIMTrace of the result,
+     * e.g., those a checker needs, instead of full DebugTicks
+     * @param properties names of the properties, e.g., position or SoS_level_benefit
+     */
+    public void setTraceProperties(String[] properties) {
+        this.traceProperties = properties;
+    }
+
+    /**
+     * Debug traces of the last run, a DebugTick per step in the order of ticks.
+     * Ticks skipped to the next event have no DebugTick: CSs only went on with their current actions.
+     * @return DebugTicks by tick
+     */
     public HashMap<Integer, DebugTick> getDebugTraces() {
         return this.debugTraceMap;
     }
@@ -3,6 +3,8 @@ package kr.ac.kaist.se.simulator.method;
 import kr.ac.kaist.se.simulator.BaseAction;
 import kr.ac.kaist.se.simulator.DebugProperty;
 
+import java.util.Random;
+
 /**
  * DummyAction.java
 
@@ -60,7 +62,7 @@ public class DummyAction extends BaseAction {
     }
 
     @Override
-    public void randomGenerate() {
+    public void randomGenerate(Random random) {
         // Do nothing
     }
 
@@ -1,12 +1,10 @@
 package mci.checker;
 
 import kr.ac.kaist.se.mc.CheckerInterface;
-import kr.ac.kaist.se.simulator.DebugProperty;
-import kr.ac.kaist.se.simulator.DebugTick;
 import kr.ac.kaist.se.simulator.SIMResult;
+import kr.ac.kaist.se.simulator.SIMTrace;
 
 import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Absence.java
@@ -45,31 +43,34 @@ public class Absence implements CheckerInterface{
         // params[1]: probability
     }
 
+    @Override
+    public String[] getTraceProperties() {
+        return new String[]{"stat"};
+    }
+
     /**
      * evaluateSample Method
      * Evaluate a given property satisfies absence property
      * Check all time ticks whether there is a patient whose status changes
      * from DEAD to other status (Dangerous or Very_Dangerous)
-     * @param res Simulation result class which contains debugTick Map
+     * @param res Simulation result class which contains the trace of patient statuses
      * @return 1, there is an absence, otherwise 0
      */
     @Override
     public int evaluateSample(SIMResult res) {
-        HashMap<Integer, DebugTick> traceMap = res.getDebugTraces();
+        SIMTrace trace = res.getTrace(this.getTraceProperties()); // Or its debug traces, in DEBUG mode
         HashMap<String, String> patientStatusMap = new HashMap<>(); // Additional map
 
-        for(Map.Entry <Integer,DebugTick> t: traceMap.entrySet()){
-            for(Map.Entry<String, DebugProperty> debugTick: t.getValue().getDebugInfoMap().entrySet()){
-                String name = debugTick.getKey();
-                if(name.contains("Patient")){
-                    String stat = (String) debugTick.getValue().getProperty("stat");
-                    if(patientStatusMap.containsKey(name)){
-                        String beforeStat = patientStatusMap.get(name);
-                        if(beforeStat.equalsIgnoreCase("DEAD") && !stat.equalsIgnoreCase("DEAD"))
-                            return 0;
-                    }else{
-                        patientStatusMap.put(name, stat);
-                    }
+        for(int i = 0; i < trace.size("stat"); i++){
+            String name = trace.getName("stat", i);
+            if(name.contains("Patient")){
+                String stat = trace.getString("stat", i);
+                if(patientStatusMap.containsKey(name)){
+                    String beforeStat = patientStatusMap.get(name);
+                    if(beforeStat.equalsIgnoreCase("DEAD") && !stat.equalsIgnoreCase("DEAD"))
+                        return 0;
+                }else{
+                    patientStatusMap.put(name, stat);
                 }
             }
         }
@@ -52,6 +52,11 @@ public class RobotChecker implements CheckerInterface{
         this.negation = false;
     }
 
+    @Override
+    public String[] getTraceProperties() {
+        return new String[0]; // Evaluated on the result only
+    }
+
     @Override
     public void init(String[] params) {
         // params[0]: checker name
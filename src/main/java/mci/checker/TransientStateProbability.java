@@ -1,12 +1,9 @@
 package mci.checker;
 
 import kr.ac.kaist.se.mc.CheckerInterface;
-import kr.ac.kaist.se.simulator.DebugProperty;
-import kr.ac.kaist.se.simulator.DebugTick;
 import kr.ac.kaist.se.simulator.SIMResult;
+import kr.ac.kaist.se.simulator.SIMTrace;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.StringTokenizer;
 
 /**
@@ -53,34 +50,35 @@ public class TransientStateProbability implements CheckerInterface {
         return "After Q, P holds after t_u ticks with a probability () than p.";
     }
 
+    @Override
+    public String[] getTraceProperties() {
+        return new String[]{"SoS_level_benefit"};
+    }
+
     /**
      * evaluateSample Method
      * Evaluate a given property satisfies Transient State Probability property
      * Check whether after some ticks, P holds after t_u ticks with a probability () than p.
-     * @param res Simulation result class which contains debugTick Map
+     * @param res Simulation result class which contains the trace of SoS-level benefits
      * @return 1, Transient State Probability of property is guaranteed, otherwise 0
      */
     @Override
     public int evaluateSample(SIMResult res) {
-        HashMap<Integer, DebugTick> traceMap = res.getDebugTraces();
+        SIMTrace trace = res.getTrace(this.getTraceProperties()); // Or its debug traces, in DEBUG mode
         int satisfied_transient = 0;
 
-        for(Map.Entry <Integer,DebugTick> t: traceMap.entrySet()){
-            for(Map.Entry<String, DebugProperty> debugTick: t.getValue().getDebugInfoMap().entrySet()){
-                String name = debugTick.getKey();
-                if(name.contains("SoS_level_benefit")){
-                    int benefit = (Integer) debugTick.getValue().getProperty("SoS_level_benefit");
-
-                    if (satisfied_transient == 0) {
-                        if (t.getKey() <= t_u && benefit >= target_benefit) {
-                            satisfied_transient = 1;
-                        } else if (t.getKey() > t_u) {
-                            return 0;
-                        }
-                    } else if (benefit < target_benefit)
-                        return 0;
+        for(int i = 0; i < trace.size("SoS_level_benefit"); i++){
+            int tick = trace.getTick("SoS_level_benefit", i);
+            int benefit = trace.getValue("SoS_level_benefit", i);
+
+            if (satisfied_transient == 0) {
+                if (tick <= t_u && benefit >= target_benefit) {
+                    satisfied_transient = 1;
+                } else if (tick > t_u) {
+                    return 0;
                 }
-            }
+            } else if (benefit < target_benefit)
+                return 0;
         }
 
         if (satisfied_transient == 1)
@@ -1,12 +1,8 @@
 package mci.checker;
 
 import kr.ac.kaist.se.mc.CheckerInterface;
-import kr.ac.kaist.se.simulator.DebugProperty;
-import kr.ac.kaist.se.simulator.DebugTick;
 import kr.ac.kaist.se.simulator.SIMResult;
-
-import java.util.HashMap;
-import java.util.Map;
+import kr.ac.kaist.se.simulator.SIMTrace;
 
 /**
  * Universality.java
@@ -46,25 +42,28 @@ public class Universality implements CheckerInterface{
         this.maxRange = Integer.parseInt(params[6]);
     }
 
+    @Override
+    public String[] getTraceProperties() {
+        return new String[]{"position"};
+    }
+
     /**
      * evaluateSample Method
      * Evaluate a given property satisfies universality property
      * Check all time ticks whether all PTSs are in the operation area, which is 0-100.
-     * @param res Simulation result class which contains debugTick Map
+     * @param res Simulation result class which contains the trace of positions
      * @return 1, Universality is guaranteed, otherwise 0
      */
     @Override
     public int evaluateSample(SIMResult res) {
-        HashMap<Integer, DebugTick> traceMap = res.getDebugTraces();
+        SIMTrace trace = res.getTrace(this.getTraceProperties()); // Or its debug traces, in DEBUG mode
 
-        for(Map.Entry <Integer,DebugTick> t: traceMap.entrySet()){
-            for(Map.Entry<String, DebugProperty> debugTick: t.getValue().getDebugInfoMap().entrySet()){
-                String name = debugTick.getKey();
-                if(name.contains("PTS")){
-                    int pos = (Integer) debugTick.getValue().getProperty("position");
-                    if(pos < this.minRange || pos > maxRange)
-                        return 0;
-                }
+        for(int i = 0; i < trace.size("position"); i++){
+            String name = trace.getName("position", i);
+            if(name.contains("PTS")){
+                int pos = trace.getValue("position", i);
+                if(pos < this.minRange || pos > maxRange)
+                    return 0;
             }
         }
         return 1;
@@ -102,6 +102,28 @@ public abstract class BasePTS extends BaseConstituent implements ConstituentInte
         }
     }
 
+    /**
+     * Next event of the PTS
+     * A PTS without a patient to rescue (i.e., it found none, or its patient died on the way) does nothing
+     * until patients are raised or the hospital updates them.
+     * A PTS going to a patient turns back on arrival.
+     * @return ticks to the next event
+     */
+    @Override
+    public int getNextEventTime() {
+        if(this.PTS_STATUS == 0)
+            return Integer.MAX_VALUE;
+
+        int nextEventTime = super.getNextEventTime();
+        if(this.PTS_STATUS == 1){
+            RescueAction currentAction = (RescueAction) this.getCurrentAction();
+            int distance = Math.abs(currentAction.getRaisedLoc() - this.curPos);
+            if(distance > 0 && distance < nextEventTime)
+                nextEventTime = distance;
+        }
+        return nextEventTime;
+    }
+
     /**
      * Move the PTS moveVal value in GeoMap
      * @param moveVal
@@ -265,6 +287,16 @@ public abstract class BasePTS extends BaseConstituent implements ConstituentInte
         return prop;
     }
 
+    @Override
+    public Object getDebugValue(String key){
+        // Same as getDebugProperty, without building it
+        if(key.equals("status"))
+            return this.getStatusString();
+        else if(key.equals("position"))
+            return this.curPos;
+        return null;
+    }
+
     @Override
     public String getName(){
         return this.name;
@@ -92,16 +92,21 @@ public class Hospital extends BaseConstituent implements ManagerInterface {
     @Override
     public void updateCapability(ArrayList<BaseAction> updatedActions){
         for(BaseAction _a : updatedActions){
-            try {
-                RescueAction rA = (RescueAction) _a;
-                if(rA.getPatientStatus() == null)
-                    continue;
-                int raisedLoc = rA.getRaisedLoc();
-                MapPoint m = Hospital.GeoMap.get(raisedLoc);
-                m.addCurAction(rA);
-            }catch(ClassCastException e){
-                continue;
-            }
+            updateCapability(_a);
+        }
+    }
+
+    @Override
+    public void updateCapability(BaseAction updatedAction){
+        try {
+            RescueAction rA = (RescueAction) updatedAction;
+            if(rA.getPatientStatus() == null)
+                return;
+            int raisedLoc = rA.getRaisedLoc();
+            MapPoint m = Hospital.GeoMap.get(raisedLoc);
+            m.addCurAction(rA);
+        }catch(ClassCastException e){
+            return;
         }
     }
 
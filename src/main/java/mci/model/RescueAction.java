@@ -63,8 +63,7 @@ public class RescueAction extends BaseAction {
     }
 
     @Override
-    public void randomGenerate() { // Location..?
-        Random ranGen = new Random();
+    public void randomGenerate(Random ranGen) { // Location..?
         int raisedLoc = Math.abs(ranGen.nextInt(101)); // 0 - 100
         while(raisedLoc > 47 && raisedLoc < 53){ // 48, 49, 50, 51, 52
             raisedLoc = Math.abs(ranGen.nextInt(101));
@@ -119,6 +118,20 @@ public class RescueAction extends BaseAction {
         return prop;
     }
 
+    @Override
+    public Object getDebugValue(String key) {
+        // Same as getDebugProperty, without building it
+        if(this.getPerformer().getClass() == Hospital.class)
+            return null;
+        if(key.equals("name"))
+            return "Patient#" + this.getName();
+        else if(key.equals("curPos"))
+            return this.curPos;
+        else if(key.equals("stat"))
+            return RescueAction.getPatientStatusString(this.pStat);
+        return null;
+    }
+
     public void treatAction(int elapsedTime){
         this.timeToDead -= Math.abs(elapsedTime);
         this.decreaseRemainingTime(Math.abs(elapsedTime));
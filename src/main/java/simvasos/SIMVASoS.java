@@ -1,17 +1,13 @@
 package simvasos;
 
 import mci.Main;
-import simvasos.propcheck.PropertyChecker;
-import simvasos.sa.method.SPRT;
+import simvasos.sa.ParallelSampler;
+import simvasos.sa.method.MultiHypothesisSPRT;
 import simvasos.scenario.robot.RobotScenario;
-import simvasos.simulation.Simulator;
-import simvasos.simulation.analysis.Snapshot;
-import simvasos.simulation.component.Scenario;
-import simvasos.simulation.component.World;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Random;
 
 /**
  * Created by mgjin on 2017-06-12.
@@ -30,22 +26,23 @@ public class SIMVASoS {
             }
         }
 
-        Scenario scenario = new RobotScenario(3);
-        World world = scenario.getWorld();
-        PropertyChecker checker = scenario.getChecker();
+        int nThreads = Runtime.getRuntime().availableProcessors();
+        ParallelSampler sampler = new ParallelSampler(() -> new RobotScenario(3), nThreads, new Random().nextLong());
 
-        SPRT sprt = new SPRT();
+        // All theta levels are tested on one shared stream of samples
+        double[] thetas = new double[99];
+        for (int i = 1; i < 100; i++)
+            thetas[i - 1] = 0.01 * i;
 
-        for (int i = 1; i < 100; i++) {
-            sprt.reset(0.05, 0.05, 0.01, 0.01 * i);
+        MultiHypothesisSPRT sprt = new MultiHypothesisSPRT();
+        sprt.reset(0.05, 0.05, 0.01, thetas);
+        sampler.run(sprt, 11);
 
-            while (sprt.isSampleNeeded()) {
-                ArrayList<Snapshot> simulationLog = Simulator.execute(world, 11);
-                sprt.addSample(checker.isSatisfied(simulationLog));
-            }
+        for (int i = 0; i < sprt.size(); i++)
+            System.out.println("Theta: " + sprt.getTheta(i) + ", Sample Size: " + sprt.getSampleSize(i) + ", Decision: " + sprt.getDecision(i));
+        System.out.println("Total Sample Size: " + sprt.getSampleSize());
 
-            System.out.println("Theta: " + (0.01 * i) + ", Sample Size: " + sprt.getSampleSize() + ", Decision: " + sprt.getDecision());
-        }
+        sampler.shutdown();
 
 //        int endTick = 50;
 //        int nPatient = 100;
@@ -56,7 +53,7 @@ public class SIMVASoS {
 //        World world = scenario.getWorld();
 //        PropertyChecker checker = scenario.getChecker();
 //
-//        SPRT sprt = new SPRT();
+//        LogSPRT sprt = new LogSPRT();
 //
 //        for (int i = 1; i < 100; i++) {
 //            sprt.reset(0.05, 0.05, 0.01, 0.01 * i);
@@ -3,14 +3,20 @@ package simvasos.modelparsing.modeling.ABCPlus;
 import simvasos.simulation.component.Action;
 
 public class ABCItem {
-    public final Action action;
+    public Action action;
     public int benefit;
     public int cost;
 
     public ABCItem(Action action, int benefit, int cost) {
+        this.set(action, benefit, cost);
+    }
+
+    public ABCItem set(Action action, int benefit, int cost) {
         this.action = action;
         this.benefit = benefit;
         this.cost = cost;
+
+        return this;
     }
 
     public int utility() {
@@ -5,6 +5,7 @@ import simvasos.simulation.component.Message;
 import simvasos.simulation.component.Action;
 import simvasos.simulation.component.Agent;
 import simvasos.simulation.component.World;
+import simvasos.simulation.util.Location;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,18 @@ public abstract class ABCPlusCS extends Agent {
     protected ArrayList<ABCItem> normalActionList = new ArrayList<ABCItem>();
     protected ArrayList<ABCItem> directedNormalActionList = new ArrayList<ABCItem>();
 
+    // Messages, action items and message sending actions live until the end of the tick: every message is
+    // delivered and consumed, and every item selected or dropped, before the world progresses. They are recycled
+    // then, so a receiver has to copy what it keeps from a message
+    private final ArrayList<Message> messagePool = new ArrayList<Message>();
+    private final ArrayList<ABCItem> itemPool = new ArrayList<ABCItem>();
+    private final ArrayList<SendMessage> sendMessagePool = new ArrayList<SendMessage>();
+    private int nMessage = 0;
+    private int nItem = 0;
+    private int nSendMessage = 0;
+
+    private Action nullAction = null;
+
     protected Comparator<ABCItem> utilityComparator = new Comparator<ABCItem>() {
         @Override
         public int compare(ABCItem o1, ABCItem o2) {
@@ -38,6 +51,56 @@ public abstract class ABCPlusCS extends Agent {
         super(world);
     }
 
+    protected ABCPlusCS(World world, ABCPlusCS cs) {
+        super(world);
+
+        this.name = cs.name;
+        this.phase = cs.phase;
+
+        // Pending messages are copied; action lists are regenerated on every step
+        for (Message message : cs.incomingRequests)
+            this.incomingRequests.add(forkMessage(message));
+        for (Message message : cs.incomingInformation)
+            this.incomingInformation.add(forkMessage(message));
+    }
+
+    private Message forkMessage(Message message) {
+        Message forked = new Message(message);
+        forked.remap(this.world);
+        return forked;
+    }
+
+    protected Message newMessage() {
+        if (this.nMessage == this.messagePool.size())
+            this.messagePool.add(new Message());
+
+        Message message = this.messagePool.get(this.nMessage++);
+        message.clear();
+        return message;
+    }
+
+    protected ABCItem newItem(Action action, int benefit, int cost) {
+        if (this.nItem == this.itemPool.size())
+            this.itemPool.add(new ABCItem(null, 0, 0));
+
+        return this.itemPool.get(this.nItem++).set(action, benefit, cost);
+    }
+
+    protected Action newSendMessage(Message message) {
+        if (this.nSendMessage == this.sendMessagePool.size())
+            this.sendMessagePool.add(new SendMessage(null));
+
+        SendMessage sendMessage = this.sendMessagePool.get(this.nSendMessage++);
+        sendMessage.message = message;
+        return sendMessage;
+    }
+
+    private void recycle() {
+        this.nMessage = 0;
+        this.nItem = 0;
+        this.nSendMessage = 0;
+    }
+
     @Override
     public Action step() {
         updateBelief();
@@ -49,6 +112,12 @@ public abstract class ABCPlusCS extends Agent {
     public void progress() {
         this.phase = Phase.ActiveImmediateStep;
         this.directedNormalActionList.clear();
+
+        // End of the tick; nothing refers to this tick's messages and items anymore
+        clearMessages();
+        this.immediateActionList.clear();
+        this.normalActionList.clear();
+        recycle();
     }
 
     protected void updateBelief() {
@@ -96,28 +165,52 @@ public abstract class ABCPlusCS extends Agent {
         Action res = null;
 
         if (immediateActionList.size() > 0) {
-            Collections.shuffle(immediateActionList, this.world.random);
+            Collections.shuffle(immediateActionList, this.getRandom());
             Collections.sort(immediateActionList, utilityComparator);
             res = immediateActionList.remove(0).action;
         } else if (normalActionList.size() > 0 || directedNormalActionList.size() > 0) {
-            normalActionList.addAll(directedNormalActionList);
-            Collections.shuffle(normalActionList, this.world.random);
+            for (int i = 0; i < directedNormalActionList.size(); i++) // Not addAll(), which copies the list
+                normalActionList.add(directedNormalActionList.get(i));
+            Collections.shuffle(normalActionList, this.getRandom());
             Collections.sort(normalActionList, utilityComparator);
             res = normalActionList.remove(0).action;
         } else {
-            res = Action.getNullAction(1, this.getName() + ": Null action");
+            if (this.nullAction == null)
+                this.nullAction = Action.getNullAction(1, this.getName() + ": Null action");
+            res = this.nullAction;
         }
 
         return res;
     }
 
-    public abstract void reset();
+    @Override
+    public void reset() {
+        this.phase = Phase.ActiveImmediateStep;
+
+        clearMessages();
+
+        this.immediateActionList.clear();
+        this.normalActionList.clear();
+        this.directedNormalActionList.clear();
+        recycle();
+    }
+
+    public void clearMessages() {
+        this.incomingRequests.clear();
+        this.incomingInformation.clear();
+    }
+
     public abstract String getName();
 
+    public Location getLocation() {
+        // Null for CSs without physical existence
+        return null;
+    }
+
     public abstract HashMap<String, Object> getProperties();
 
     protected class SendMessage extends Action {
-        private final Message message;
+        private Message message;
         public SendMessage(Message message) {
             super(0);
             this.message = message;
@@ -1,6 +1,8 @@
 package simvasos.propcheck;
 
 import simvasos.simulation.analysis.Snapshot;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
 
 import java.util.ArrayList;
 
@@ -8,6 +10,44 @@ import java.util.ArrayList;
  * Created by mgjin on 2017-06-21.
  */
 public abstract class PropertyChecker {
-    protected abstract boolean evaluate(Snapshot snapshot);
-    public abstract boolean isSatisfied(ArrayList<Snapshot> simulationLog);
+    public enum Verdict {SATISFIED, VIOLATED, UNDECIDED}
+
+    // Online checking: snapshots are fed one by one as the simulation produces them
+    public void begin() {
+        // Override me if the checker keeps state across snapshots
+    }
+
+    public abstract boolean conclude(); // Result of a run that ended while still UNDECIDED
+
+    // Columnar traces: properties are resolved to ids once per schema, then read by tick
+    public void bind(TraceSchema schema) {
+        // Override me to look up the ids of the properties to evaluate
+    }
+
+    protected abstract boolean evaluate(Trace trace, int tick);
+    public abstract Verdict check(Trace trace, int tick);
+
+    public boolean needsEveryTick() {
+        // Between two events only the time changes. Override me to return false if the checker does not look at
+        // the time, then the event simulator checks it at event times only
+        return true;
+    }
+
+    public boolean isSatisfied(Trace trace) {
+        this.bind(trace.getSchema());
+        this.begin();
+
+        for (int tick = 0; tick < trace.size(); tick++) {
+            Verdict verdict = this.check(trace, tick);
+            if (verdict != Verdict.UNDECIDED)
+                return verdict == Verdict.SATISFIED;
+        }
+
+        return this.conclude();
+    }
+
+    public boolean isSatisfied(ArrayList<Snapshot> simulationLog) {
+        // Snapshot logs are checked on a trace of them, see Trace.of()
+        return this.isSatisfied(Trace.of(simulationLog));
+    }
 }
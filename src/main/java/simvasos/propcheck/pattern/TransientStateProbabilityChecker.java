@@ -1,21 +1,24 @@
 package simvasos.propcheck.pattern;
 
 import simvasos.propcheck.PropertyChecker;
-import simvasos.simulation.analysis.Snapshot;
-
-import java.util.ArrayList;
+import simvasos.simulation.analysis.Trace;
 
 /**
  * Created by mgjin on 2017-06-21.
  */
 public class TransientStateProbabilityChecker extends PropertyChecker {
     @Override
-    protected boolean evaluate(Snapshot snapshot) {
+    protected boolean evaluate(Trace trace, int tick) {
         return false;
     }
 
     @Override
-    public boolean isSatisfied(ArrayList<Snapshot> simulationLog) {
+    public Verdict check(Trace trace, int tick) {
+        return Verdict.UNDECIDED;
+    }
+
+    @Override
+    public boolean conclude() {
         return false;
     }
 }
@@ -0,0 +1,139 @@
+package simvasos.sa;
+
+import simvasos.propcheck.PropertyChecker;
+import simvasos.propcheck.PropertyChecker.Verdict;
+import simvasos.simulation.Simulator;
+import simvasos.simulation.component.Scenario;
+import simvasos.simulation.component.World;
+import simvasos.simulation.util.RandomStream;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent replications of a scenario on a worker pool and feeds the outcomes to a statistical analyzer,
+ * which thus tests the probability that a run of the scenario, from reset up to the end time, satisfies its property.
+ *
+ * Every sample gets its own seed, derived from the master seed and the index of the sample (see RandomStream), and
+ * outcomes are consumed strictly in submission order. The analyzer therefore sees exactly the sequence a serial run
+ * with the same master seed would produce, and samples finished beyond the stopping point are discarded instead of
+ * biasing the decision.
+ *
+ * With a branch time, the samples share a prefix up to that time, simulated and checked once with the master seed;
+ * every sample then goes on from a fork of a checkpoint of the prefix with its own seed, instead of replaying it.
+ * The prefix must not draw from any random stream (see World.hasDrawn()): it is then the prefix of the run of every
+ * seed, the samples are still independent runs, and the analyzer tests the same probability. A prefix that draws
+ * (e.g., patients placed at reset) is refused, as the analyzer would test the probability given that one prefix.
+ * The checker of a worker goes on from the prefix without having seen it, so it must not keep state across snapshots.
+ */
+public class ParallelSampler {
+    private final ExecutorService executor;
+    private final ThreadLocal<Scenario> scenarios;
+    private final int maxInFlight;
+    private final long seed;
+    private long nSample = 0;
+
+    public ParallelSampler(Supplier<Scenario> scenarioFactory, int nThreads, long seed) {
+        this.executor = Executors.newFixedThreadPool(nThreads, new ThreadFactory() {
+            private final AtomicInteger n = new AtomicInteger(); // A pool may replace a worker from another thread
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "simvasos-sampler-" + this.n.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.scenarios = ThreadLocal.withInitial(scenarioFactory); // Worlds are mutable, so one scenario per worker
+        this.maxInFlight = nThreads * 2; // Keep workers busy while the head of the queue is being consumed
+        this.seed = seed;
+    }
+
+    public void run(StatisticalAnalyzer analyzer, int endOfTime) {
+        sample(analyzer, null, endOfTime);
+    }
+
+    public Verdict run(StatisticalAnalyzer analyzer, int branchTime, int endOfTime) {
+        // SATISFIED or VIOLATED if the prefix decides the property, then for every run, and the analyzer gets no
+        // sample; UNDECIDED once the analyzer has decided on samples branched from the prefix
+        Scenario scenario = this.scenarios.get();
+        World world = scenario.getWorld();
+        world.setSeed(this.seed);
+
+        Verdict verdict = Simulator.check(world, Math.min(branchTime, endOfTime), scenario.getChecker());
+        if (world.hasDrawn())
+            throw new IllegalArgumentException("Prefix up to " + branchTime + " draws from random streams; its branches would not be independent");
+
+        if (verdict == Verdict.UNDECIDED && world.getTime() >= endOfTime)
+            verdict = scenario.getChecker().conclude() ? Verdict.SATISFIED : Verdict.VIOLATED;
+        if (verdict != Verdict.UNDECIDED)
+            return verdict;
+
+        sample(analyzer, world.checkpoint(), endOfTime);
+        return Verdict.UNDECIDED;
+    }
+
+    private void sample(StatisticalAnalyzer analyzer, World checkpoint, int endOfTime) {
+        ArrayDeque<Future<Boolean>> inFlight = new ArrayDeque<Future<Boolean>>();
+
+        try {
+            while (analyzer.isSampleNeeded()) {
+                while (inFlight.size() < this.maxInFlight)
+                    inFlight.add(this.executor.submit(new Sample(checkpoint, RandomStream.derive(this.seed, this.nSample++), endOfTime)));
+
+                analyzer.addSample(inFlight.poll().get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Sampling interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            // Decision reached (or failed): outcomes still in flight are not needed anymore
+            for (Future<Boolean> future : inFlight)
+                future.cancel(true);
+        }
+    }
+
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    private class Sample implements Callable<Boolean> {
+        private final World checkpoint; // Null to run from the start
+        private final long seed;
+        private final int endOfTime;
+
+        public Sample(World checkpoint, long seed, int endOfTime) {
+            this.checkpoint = checkpoint;
+            this.seed = seed;
+            this.endOfTime = endOfTime;
+        }
+
+        @Override
+        public Boolean call() throws Exception {
+            Scenario scenario = ParallelSampler.this.scenarios.get();
+            PropertyChecker checker = scenario.getChecker();
+
+            boolean satisfied;
+            if (this.checkpoint == null) {
+                World world = scenario.getWorld();
+                world.setSeed(this.seed);
+                satisfied = Simulator.execute(world, this.endOfTime, checker);
+            } else {
+                World world;
+                synchronized (this.checkpoint) { // Forks of a world are taken one at a time
+                    world = this.checkpoint.fork(this.seed);
+                }
+                satisfied = Simulator.resume(world, this.endOfTime, checker);
+            }
+
+            if (Thread.currentThread().isInterrupted())
+                throw new CancellationException("Sample cancelled");
+
+            return satisfied;
+        }
+    }
+}
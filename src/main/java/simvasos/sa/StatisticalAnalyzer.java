@@ -4,5 +4,7 @@ package simvasos.sa;
  * Created by mgjin on 2017-06-21.
  */
 public abstract class StatisticalAnalyzer {
-
+    public abstract void addSample(boolean sample);
+    public abstract boolean isSampleNeeded();
+    public abstract int getSampleSize();
 }
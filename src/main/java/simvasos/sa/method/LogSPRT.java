@@ -0,0 +1,97 @@
+package simvasos.sa.method;
+
+import simvasos.sa.StatisticalAnalyzer;
+
+import java.math.BigDecimal;
+
+/**
+ * SPRT on a running log-likelihood ratio.
+ *
+ * Same hypotheses and thresholds as SPRT, but log(p1^m (1-p1)^(n-m) / p0^m (1-p0)^(n-m)) is updated by
+ * one precomputed increment per sample instead of being recomputed, so a sample costs O(1) and no allocation,
+ * and long runs do not lose precision.
+ */
+public class LogSPRT extends StatisticalAnalyzer {
+    private final static int MINIMUM_SAMPLES = 2;
+
+    private double positiveIncrement = 0; // log(p1 / p0)
+    private double negativeIncrement = 0; // log((1 - p1) / (1 - p0))
+
+    private double logRatioA = 0; // log((1 - beta) / alpha)
+    private double logRatioB = 0; // log(beta / (1 - alpha))
+
+    private double logRatio = 0;
+
+    private int totalSamples = 0;
+    private int positiveSamples = 0;
+
+    private boolean h0decision = false;
+
+    public void reset(double alpha, double beta, double delta, double theta) {
+        BigDecimal minValue = new BigDecimal(Double.toString(Double.MIN_VALUE));
+
+        BigDecimal p0 = null;
+        BigDecimal p1 = null;
+
+        //
+        boolean lessCheck = true; // for Robot
+        //
+
+        if (!lessCheck) {
+            p0 = new BigDecimal(String.valueOf(theta)).add(new BigDecimal(String.valueOf(delta))).subtract(minValue);
+            p1 = new BigDecimal(String.valueOf(theta)).subtract(new BigDecimal(String.valueOf(delta))).add(minValue);
+        } else {
+            p1 = new BigDecimal(String.valueOf(theta)).add(new BigDecimal(String.valueOf(delta))).subtract(minValue);
+            p0 = new BigDecimal(String.valueOf(theta)).subtract(new BigDecimal(String.valueOf(delta))).add(minValue);
+        }
+
+        // Complements are taken before converting to double, so that 1 - p keeps its Double.MIN_VALUE margin
+        this.positiveIncrement = Math.log(p1.doubleValue()) - Math.log(p0.doubleValue());
+        this.negativeIncrement = Math.log(BigDecimal.ONE.subtract(p1).doubleValue()) - Math.log(BigDecimal.ONE.subtract(p0).doubleValue());
+
+        this.logRatioA = Math.log((1 - beta) / alpha);
+        this.logRatioB = Math.log(beta / (1 - alpha));
+
+        this.logRatio = 0;
+        this.totalSamples = 0;
+        this.positiveSamples = 0;
+
+        this.h0decision = false;
+    }
+
+    @Override
+    public void addSample(boolean sample) {
+        this.totalSamples++;
+
+        if (sample) {
+            this.positiveSamples++;
+            this.logRatio += this.positiveIncrement;
+        } else {
+            this.logRatio += this.negativeIncrement;
+        }
+    }
+
+    @Override
+    public boolean isSampleNeeded() {
+        if (this.totalSamples < LogSPRT.MINIMUM_SAMPLES)
+            return true;
+
+        if (this.logRatio <= this.logRatioB) {
+            this.h0decision = true;
+            return false;
+        } else if (this.logRatio >= this.logRatioA) {
+            this.h0decision = false;
+            return false;
+        } else
+            return true;
+    }
+
+    public boolean getDecision() {
+        return this.h0decision;
+    }
+
+    @Override
+    public int getSampleSize() {
+        return this.totalSamples;
+    }
+}
@@ -0,0 +1,83 @@
+package simvasos.sa.method;
+
+import simvasos.sa.StatisticalAnalyzer;
+
+/**
+ * Many SPRT hypotheses (e.g., a theta sweep) tested on one shared stream of samples.
+ *
+ * Every sample is given to each hypothesis that is still undecided, and sampling stops when the last one decides.
+ * A hypothesis sees exactly the prefix of the stream a standalone LogSPRT would have seen, so its decision and
+ * the sample count at which it decided are the ones of a separate test, without simulating the samples again.
+ */
+public class MultiHypothesisSPRT extends StatisticalAnalyzer {
+    private double[] thetas = new double[0];
+    private LogSPRT[] hypotheses = new LogSPRT[0];
+
+    private int[] undecided = new int[0]; // Indices of undecided hypotheses, compacted as they decide
+    private int nUndecided = 0;
+
+    private int totalSamples = 0;
+
+    public void reset(double alpha, double beta, double delta, double[] thetas) {
+        this.thetas = thetas.clone();
+        this.hypotheses = new LogSPRT[thetas.length];
+        this.undecided = new int[thetas.length];
+
+        for (int i = 0; i < thetas.length; i++) {
+            this.hypotheses[i] = new LogSPRT();
+            this.hypotheses[i].reset(alpha, beta, delta, thetas[i]);
+            this.undecided[i] = i;
+        }
+
+        this.nUndecided = thetas.length;
+        this.totalSamples = 0;
+    }
+
+    @Override
+    public void addSample(boolean sample) {
+        this.totalSamples++;
+
+        int remaining = 0;
+        for (int k = 0; k < this.nUndecided; k++) {
+            int i = this.undecided[k];
+            LogSPRT hypothesis = this.hypotheses[i];
+
+            hypothesis.addSample(sample);
+            if (hypothesis.isSampleNeeded())
+                this.undecided[remaining++] = i;
+        }
+
+        this.nUndecided = remaining;
+    }
+
+    @Override
+    public boolean isSampleNeeded() {
+        return this.nUndecided > 0;
+    }
+
+    @Override
+    public int getSampleSize() {
+        return this.totalSamples;
+    }
+
+    public int size() {
+        return this.thetas.length;
+    }
+
+    public double getTheta(int i) {
+        return this.thetas[i];
+    }
+
+    public boolean isDecided(int i) {
+        return !this.hypotheses[i].isSampleNeeded();
+    }
+
+    public boolean getDecision(int i) {
+        return this.hypotheses[i].getDecision();
+    }
+
+    public int getSampleSize(int i) {
+        // Number of samples the hypothesis needed to decide
+        return this.hypotheses[i].getSampleSize();
+    }
+}
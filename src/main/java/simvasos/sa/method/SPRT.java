@@ -57,6 +57,7 @@ public class SPRT extends StatisticalAnalyzer {
         this.h0decision = false;
     }
 
+    @Override
     public void addSample(boolean sample) {
         this.totalSamples++;
 
@@ -64,6 +65,7 @@ public class SPRT extends StatisticalAnalyzer {
             this.positiveSamples++;
     }
 
+    @Override
     public boolean isSampleNeeded() {
         if (this.totalSamples < SPRT.MINIMUM_SAMPLES)
             return true;
@@ -108,6 +110,7 @@ public class SPRT extends StatisticalAnalyzer {
         return this.h0decision;
     }
 
+    @Override
     public int getSampleSize() {
         return this.totalSamples;
     }
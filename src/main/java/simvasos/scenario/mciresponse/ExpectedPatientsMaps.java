@@ -0,0 +1,102 @@
+package simvasos.scenario.mciresponse;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import simvasos.simulation.util.IntGrid;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of expected patients maps; a map only depends on its size and distribution, so it is computed
+ * once and shared, frozen, by every world of every thread.
+ */
+final class ExpectedPatientsMaps {
+    private static final ConcurrentHashMap<Key, IntGrid> maps = new ConcurrentHashMap<Key, IntGrid>();
+
+    private ExpectedPatientsMaps() {
+    }
+
+    public static IntGrid get(int xSize, int ySize) {
+        // On each axis, a centered normal distribution with a quarter of its size as standard deviation, as the
+        // patients are placed (see MCIResponseWorld.getRandomPatientLocation())
+        return get(xSize, ySize, xSize / 2, xSize / 4, ySize / 2, ySize / 4);
+    }
+
+    public static IntGrid get(int xSize, int ySize, double xMean, double xSd, double yMean, double ySd) {
+        return maps.computeIfAbsent(new Key(xSize, ySize, xMean, xSd, yMean, ySd), ExpectedPatientsMaps::generate);
+    }
+
+    private static IntGrid generate(Key key) {
+        // Separable: one CDF table per axis, then the product of the cell probabilities
+        double[] xProb = probabilities(key.xMean, key.xSd, key.xSize);
+        double[] yProb = probabilities(key.yMean, key.ySd, key.ySize);
+
+        IntGrid map = new IntGrid(key.xSize, key.ySize);
+        for (int x = 0; x < key.xSize; x++) {
+            double nX = xProb[x] * key.xSize * key.ySize;
+            for (int y = 0; y < key.ySize; y++)
+                map.setValue(x, y, (int) Math.round(yProb[y] * nX));
+        }
+
+        return map.freeze();
+    }
+
+    private static double[] probabilities(double mean, double sd, int size) {
+        double[] probabilities = new double[size];
+        if (sd == 0) {
+            // An axis shorter than 4 places every patient at its mean
+            int i = (int) Math.round(mean);
+            if (i >= 0 && i < size)
+                probabilities[i] = 1;
+            return probabilities;
+        }
+
+        // Probability of (i - 1, i] for every index of the axis
+        NormalDistribution nd = new NormalDistribution(mean, sd);
+        double[] cdf = new double[size + 1];
+        for (int i = -1; i < size; i++)
+            cdf[i + 1] = nd.cumulativeProbability(i);
+
+        for (int i = 0; i < size; i++)
+            probabilities[i] = cdf[i + 1] - cdf[i];
+
+        return probabilities;
+    }
+
+    private static final class Key {
+        private final int xSize;
+        private final int ySize;
+        private final double xMean;
+        private final double xSd;
+        private final double yMean;
+        private final double ySd;
+
+        private Key(int xSize, int ySize, double xMean, double xSd, double yMean, double ySd) {
+            this.xSize = xSize;
+            this.ySize = ySize;
+            this.xMean = xMean;
+            this.xSd = xSd;
+            this.yMean = yMean;
+            this.ySd = ySd;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key key = (Key) obj;
+                return this.xSize == key.xSize && this.ySize == key.ySize
+                        && Double.compare(this.xMean, key.xMean) == 0 && Double.compare(this.xSd, key.xSd) == 0
+                        && Double.compare(this.yMean, key.yMean) == 0 && Double.compare(this.ySd, key.ySd) == 0;
+            } else
+                return false;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 * this.xSize + this.ySize;
+            hash = 31 * hash + Double.hashCode(this.xMean);
+            hash = 31 * hash + Double.hashCode(this.xSd);
+            hash = 31 * hash + Double.hashCode(this.yMean);
+            return 31 * hash + Double.hashCode(this.ySd);
+        }
+    }
+}
@@ -8,14 +8,18 @@ public class MCIResponseScenario extends Scenario {
     public enum SoSType {Virtual, Collaborative, Acknowledged, Directed}
 
     public MCIResponseScenario(SoSType type, int nPatient, int nFireFighter, int nAmbulance, int nHospital) {
-        this.world = new MCIResponseWorld(type, nPatient);
+        this(type, nPatient, nFireFighter, nAmbulance, nHospital, MCIResponseWorld.DEFAULT_MAP_SIZE.getLeft(), MCIResponseWorld.DEFAULT_MAP_SIZE.getRight());
+    }
+
+    public MCIResponseScenario(SoSType type, int nPatient, int nFireFighter, int nAmbulance, int nHospital, int mapX, int mapY) {
+        this.world = new MCIResponseWorld(type, nPatient, mapX, mapY);
 
         for (int i = 1; i <= nFireFighter; i++)
             this.world.addAgent(new FireFighter(this.world, "FireFighter" + i));
         for (int i = 1; i <= nAmbulance; i++)
-            this.world.addAgent(new Ambulance(this.world, "Ambulance" + i, new Location(MCIResponseWorld.MAP_SIZE.getLeft() / 2, MCIResponseWorld.MAP_SIZE.getRight() / 2)));
+            this.world.addAgent(new Ambulance(this.world, "Ambulance" + i, new Location(mapX / 2, mapY / 2)));
         for (int i = 1; i <= nHospital; i++)
-            this.world.addAgent(new Hospital(this.world, "Hospital" + i, new Location(MCIResponseWorld.MAP_SIZE.getLeft() / 2, MCIResponseWorld.MAP_SIZE.getRight() / 2), 100));
+            this.world.addAgent(new Hospital(this.world, "Hospital" + i, new Location(mapX / 2, mapY / 2), 100));
 
         if (type != SoSType.Virtual)
             this.world.addAgent(new ControlTower(this.world, "ControlTower"));
@@ -1,7 +1,6 @@
 package simvasos.scenario.mciresponse;
 
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.math3.distribution.NormalDistribution;
 import simvasos.modelparsing.modeling.ABCPlus.ABCPlusCS;
 import simvasos.scenario.mciresponse.MCIResponseScenario.SoSType;
 import simvasos.scenario.mciresponse.entity.Ambulance;
@@ -9,6 +8,8 @@ import simvasos.scenario.mciresponse.entity.Hospital;
 import simvasos.simulation.util.*;
 import simvasos.simulation.analysis.PropertyValue;
 import simvasos.simulation.analysis.Snapshot;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
 import simvasos.simulation.component.Action;
 import simvasos.simulation.component.Agent;
 import simvasos.simulation.component.Message;
@@ -37,46 +38,131 @@ public class MCIResponseWorld extends World {
     public final int nPatient;
     public int messageCnt;
 
-    public static final Pair<Integer, Integer> MAP_SIZE = new Pair<Integer, Integer>(49, 49);
-    public final Maptrix<Integer> expectedPatientsMap = new Maptrix<Integer>(Integer.TYPE, MAP_SIZE.getLeft(), MAP_SIZE.getRight());
-    public final Maptrix<ArrayList> patientsMap = new Maptrix<ArrayList>(ArrayList.class, MAP_SIZE.getLeft(), MAP_SIZE.getRight());
+    public static final Pair<Integer, Integer> DEFAULT_MAP_SIZE = new Pair<Integer, Integer>(49, 49);
+    private final int mapX;
+    private final int mapY;
 
-    public ArrayList<Patient> patients = new ArrayList<Patient>();
+    public final IntGrid expectedPatientsMap; // Frozen, shared by all worlds of the same map size
+    public final ObjectGrid<ArrayList<Patient>> patientsMap;
+
+    public ArrayList<Patient> patients = new ArrayList<Patient>(); // Handles on patientStore, by id
+    private final PatientStore patientStore;
+    private final PatientIndex patientIndex;
+    private final Set<Patient> pulledoutPatients;
 
     private static int stringFactor = 2;
 
+    private final MessageRouter router;
+
     public MCIResponseWorld(SoSType type, int nPatient) {
+        this(type, nPatient, DEFAULT_MAP_SIZE.getLeft(), DEFAULT_MAP_SIZE.getRight());
+    }
+
+    public MCIResponseWorld(SoSType type, int nPatient, int mapX, int mapY) {
         super(1);
 
+        if (mapX < 1 || mapY < 1 || mapX - 1 > PatientStore.MAX_COORDINATE || mapY - 1 > PatientStore.MAX_COORDINATE)
+            throw new IllegalArgumentException("Map size out of range: " + mapX + "x" + mapY + ", at most " + (PatientStore.MAX_COORDINATE + 1) + " a side");
+
         this.setSoSType(type);
         this.nPatient = nPatient;
+        this.mapX = mapX;
+        this.mapY = mapY;
+        this.router = new MessageRouter(this.agents, mapX, mapY);
 
+        this.expectedPatientsMap = ExpectedPatientsMaps.get(mapX, mapY);
+        this.patientsMap = new ObjectGrid<ArrayList<Patient>>(mapX, mapY, () -> new ArrayList<Patient>()); // Lists of the cells with patients only
+
+        this.patientStore = new PatientStore(nPatient);
+        this.patients.ensureCapacity(nPatient);
         for (int i = 0; i < nPatient; i++)
-            patients.add(new Patient(this.random, "Patient" + (i+1)));
+            patients.add(new Patient(this.patientStore, i));
+        this.patientIndex = new PatientIndex(mapX, mapY, nPatient);
+        this.pulledoutPatients = this.patientIndex.view(this.patients, Patient.Status.Pulledout);
 
         this.reset();
     }
 
+    private MCIResponseWorld(MCIResponseWorld world, long seed) {
+        super(world, seed);
+
+        this.setSoSType(world.type);
+        this.nPatient = world.nPatient;
+        this.messageCnt = world.messageCnt;
+        this.mapX = world.mapX;
+        this.mapY = world.mapY;
+        this.router = new MessageRouter(this.agents, this.mapX, this.mapY);
+
+        this.expectedPatientsMap = world.expectedPatientsMap;
+        this.patientsMap = new ObjectGrid<ArrayList<Patient>>(this.mapX, this.mapY, () -> new ArrayList<Patient>());
+
+        this.patientStore = new PatientStore(world.patientStore);
+        this.patients.ensureCapacity(this.nPatient);
+        for (int i = 0; i < this.nPatient; i++)
+            this.patients.add(new Patient(this.patientStore, i));
+
+        this.patientIndex = new PatientIndex(this.mapX, this.mapY, this.nPatient);
+        this.patientIndex.copyFrom(world.patientIndex);
+
+        // Rebuild the geographical distribution with the copied patients, in the same order
+        for (Patient patient : this.patients)
+            this.patientsMap.getValueAt(this.patientIndex.getCell(patient.getId())).add(patient);
+        this.pulledoutPatients = this.patientIndex.view(this.patients, Patient.Status.Pulledout);
+    }
+
+    @Override
+    protected World copy(long seed) {
+        return new MCIResponseWorld(this, seed);
+    }
+
+    public Patient getPatient(Patient patient) {
+        // The counterpart of a patient from the world this one is forked from
+        return patient == null ? null : this.patients.get(patient.getId());
+    }
+
+    @Override
+    public Object remap(Object value) {
+        return value instanceof Patient ? getPatient((Patient) value) : super.remap(value);
+    }
+
     public void setSoSType(SoSType type) {
         this.type = type;
     }
 
+    public SoSType getSoSType() {
+        return this.type;
+    }
+
+    public int getMapX() {
+        return this.mapX;
+    }
+
+    public int getMapY() {
+        return this.mapY;
+    }
+
     @Override
     public void reset() {
         super.reset();
 
-        for (Patient patient : this.patients)
-            patient.reset();
+        for (int i = 0; i < this.nPatient; i++)
+            this.patientStore.reset(i, getRandom(Stream.Environment));
 
         // Adjust severity of patients
 
         // Adjust geographical distribution of patients
-        patientsMap.reset();
+        for (Patient patient : this.patients) { // The lists of the cells are kept
+            int cell = this.patientIndex.getCell(patient.getId());
+            if (this.patientsMap.hasValueAt(cell))
+                this.patientsMap.getValueAt(cell).clear();
+        }
+        this.patientIndex.clear();
         for (Patient patient : this.patients) {
-            patient.setLocation(getRandomPatientLocation());
-            patientsMap.getValue(patient.getLocation()).add(patient);
+            Location location = getRandomPatientLocation();
+            patient.setLocation(location);
+            patientsMap.getValue(location).add(patient);
+            this.patientIndex.add(patient.getId(), getCell(location), patient.getStatus());
         }
-        generateExpectedPatientsMap();
 
         HashMap<String, Location> hospitalLocations = new HashMap<String, Location>();
         HashMap<String, Integer> hospitalCapacities = new HashMap<String, Integer>();
@@ -92,25 +178,31 @@ public class MCIResponseWorld extends World {
             }
 
         this.messageCnt = 0;
+        this.router.invalidatePositions();
     }
 
     @Override
     public void progress(int time) {
         super.progress(time);
+        this.router.invalidatePositions();
 
         for (Agent agent : this.agents)
             if (agent instanceof ABCPlusCS)
                 ((ABCPlusCS) agent).progress();
     }
 
+    private int getCell(Location location) {
+        return this.patientsMap.getCell(location.getX(), location.getY());
+    }
+
     public boolean checkValidLocation(Location location) {
         return checkValidLocation(location.getX(), location.getY());
     }
 
     public boolean checkValidLocation(int x, int y) {
-        if (x < 0 || x > MAP_SIZE.getLeft() - 1)
+        if (x < 0 || x > this.mapX - 1)
             return false;
-        if (y < 0 || y > MAP_SIZE.getRight() - 1)
+        if (y < 0 || y > this.mapY - 1)
             return false;
 
         return true;
@@ -128,30 +220,15 @@ public class MCIResponseWorld extends World {
         return true;
     }
 
-    private void generateExpectedPatientsMap() {
-        NormalDistribution xND = new NormalDistribution(MAP_SIZE.getLeft() / 2, MAP_SIZE.getLeft() / 4);
-        NormalDistribution yND = new NormalDistribution(MAP_SIZE.getRight() / 2, MAP_SIZE.getRight() / 4);
-
-        for (int x = 0; x < MAP_SIZE.getLeft(); x++)
-            for (int y = 0; y < MAP_SIZE.getRight(); y++) {
-                double xProb = xND.cumulativeProbability(x) - xND.cumulativeProbability(x - 1);
-                double nX = xProb * MAP_SIZE.getLeft() * MAP_SIZE.getRight();
-
-                double yProb = xND.cumulativeProbability(y) - xND.cumulativeProbability(y - 1);
-                int nXY = (int) Math.round(yProb * nX);
-
-                this.expectedPatientsMap.setValue(x, y, nXY);
-            }
-    }
-
     private Location getRandomPatientLocation() {
+        Random random = getRandom(Stream.Environment);
         int x = -1, y = -1;
         Location location = null;
 
         boolean stoppingCondition = false;
         while (!stoppingCondition) {
-            x = (int) Math.round(this.random.nextGaussian() * (MAP_SIZE.getLeft() / 4) + MAP_SIZE.getLeft() / 2);
-            y = (int) Math.round(this.random.nextGaussian() * (MAP_SIZE.getRight() / 4) + MAP_SIZE.getRight() / 2);
+            x = (int) Math.round(random.nextGaussian() * (this.mapX / 4) + this.mapX / 2);
+            y = (int) Math.round(random.nextGaussian() * (this.mapY / 4) + this.mapY / 2);
             location = new Location(x, y);
 
             if (!checkValidLocation(location))
@@ -180,46 +257,43 @@ public class MCIResponseWorld extends World {
     public void sendMessage(Message message) {
 //        System.out.println("Messages: " + message.sender + " - " + message.getName());
 
-        // Send the message to the receiver(s)
-        for (Agent agent : this.agents)
-            if (agent instanceof ABCPlusCS) {
-                if (agent.getName().equals(message.sender))
-                    continue;
-
-                if (agent.getName().startsWith(message.receiver)) {
-                    if (message.location == null) {
-                        ((ABCPlusCS) agent).receiveMessage(message);
-                        this.messageCnt++;
-                    } else {
-                        Map<String, Object> props = agent.getProperties();
-                        if (props.containsKey("Location"))
-                            if (message.location.equals(props.get("Location"))) {
-                                ((ABCPlusCS) agent).receiveMessage(message);
-                                this.messageCnt++;
-                            }
-                    }
-                }
-            }
+        // Send the message to the receiver(s), i.e. the other CSs whose name starts with the receiver,
+        // at the location of the message if it has one
+        this.messageCnt += this.router.deliver(message);
     }
 
-    @Override
-    public ArrayList<Action> generateExogenousActions() {
-        ArrayList<Action> exo = new ArrayList<Action>();
-        exo.add(new Action(0) {
+    private final Action bleed = new Action(0) {
 
-            @Override
-            public void execute() {
-                for (Patient patient : MCIResponseWorld.this.patients)
-                    patient.bleed();
-            }
+        @Override
+        public void execute() {
+            // Only pulled-out patients bleed
+            bleed(Patient.Status.Pulledout);
+            bleed(Patient.Status.OnTransport);
+        }
+
+        private void bleed(Patient.Status status) {
+            PatientIndex index = MCIResponseWorld.this.patientIndex;
+            for (int id = index.first(status); id >= 0; ) {
+                int next = index.next(id); // Before a dead patient leaves the list
 
-            @Override
-            public String getName() {
-                return "World: Patients bleed";
+                if (MCIResponseWorld.this.patientStore.bleed(id))
+                    setPatientStatus(MCIResponseWorld.this.patients.get(id), Patient.Status.Dead);
+                id = next;
             }
-        });
+        }
+
+        @Override
+        public String getName() {
+            return "World: Patients bleed";
+        }
+    };
 
-        return exo;
+    private final ArrayList<Action> exogenousActions = new ArrayList<Action>(Collections.singletonList(this.bleed));
+
+    @Override
+    public ArrayList<Action> generateExogenousActions() {
+        // The same list on every tick; callers only read it
+        return this.exogenousActions;
     }
 
     @Override
@@ -230,7 +304,7 @@ public class MCIResponseWorld extends World {
         LinkedHashMap<String, Object> worldProperties = new LinkedHashMap<String, Object>();
 
 //        worldProperties.put("Time", this.time);
-        worldProperties.put("Pulledout", getPulledoutPatients().size());
+        worldProperties.put("Pulledout", getNumberOfPatients(Patient.Status.Pulledout));
         worldProperties.put("MessageCnt", this.messageCnt);
         snapshot.addProperties(null, worldProperties);
 
@@ -244,14 +318,32 @@ public class MCIResponseWorld extends World {
         return snapshot;
     }
 
+    private int pulledoutId, messageCntId;
+
+    @Override
+    protected void registerProperties(TraceSchema schema) {
+        super.registerProperties(schema);
+
+        this.pulledoutId = schema.register(null, "Pulledout", TraceSchema.Type.INT);
+        this.messageCntId = schema.register(null, "MessageCnt", TraceSchema.Type.INT);
+    }
+
+    @Override
+    public void recordProperties(Trace trace) {
+        super.recordProperties(trace);
+
+        trace.setInt(this.pulledoutId, getNumberOfPatients(Patient.Status.Pulledout));
+        trace.setInt(this.messageCntId, this.messageCnt);
+    }
+
     private void printExpectedPatientsMap() {
         System.out.println("Expected Patients Map");
 
-        String [][] map = new String[MAP_SIZE.getLeft()][MAP_SIZE.getRight()];
+        String [][] map = new String[this.mapX][this.mapY];
         int maximalLength = 0;
 
-        for (int x = 0; x < MAP_SIZE.getLeft(); x++)
-            for (int y = 0; y < MAP_SIZE.getRight(); y++) {
+        for (int x = 0; x < this.mapX; x++)
+            for (int y = 0; y < this.mapY; y++) {
                 map[x][y] = "" + expectedPatientsMap.getValue(x, y);
                 maximalLength = Math.max(maximalLength, map[x][y].length());
             }
@@ -260,11 +352,11 @@ public class MCIResponseWorld extends World {
 
         String horizontal = String.join("", Collections.nCopies(maximalLength, "─"));
 
-        System.out.println("┌" + String.join("┬", Collections.nCopies(MAP_SIZE.getLeft(), horizontal)) + "┐");
+        System.out.println("┌" + String.join("┬", Collections.nCopies(this.mapX, horizontal)) + "┐");
 
-        for (int y = 0; y < MAP_SIZE.getRight(); y++) {
+        for (int y = 0; y < this.mapY; y++) {
             System.out.print("│");
-            for (int x = 0; x < MAP_SIZE.getLeft(); x++) {
+            for (int x = 0; x < this.mapX; x++) {
                 if (map[x][y] == null)
                     System.out.print(StringUtils.repeat(" ", stringFactor * maximalLength));
                 else
@@ -272,11 +364,11 @@ public class MCIResponseWorld extends World {
                 System.out.print("│");
             }
             System.out.println("");
-            if (y < MAP_SIZE.getRight() - 1)
-                System.out.println("├" + String.join("┼", Collections.nCopies(MAP_SIZE.getLeft(), horizontal)) + "┤");
+            if (y < this.mapY - 1)
+                System.out.println("├" + String.join("┼", Collections.nCopies(this.mapX, horizontal)) + "┤");
         }
 
-        System.out.println("└" + String.join("┴", Collections.nCopies(MAP_SIZE.getLeft(), horizontal)) + "┘");
+        System.out.println("└" + String.join("┴", Collections.nCopies(this.mapX, horizontal)) + "┘");
     }
 
     private void printBeliefMap(Snapshot snapshot) {
@@ -286,17 +378,15 @@ public class MCIResponseWorld extends World {
             if (pv.propertyName.endsWith("BeliefMap")) {
                 System.out.println(pv.subjectName + ": " + pv.propertyName);
 
-                String [][] map = new String[MAP_SIZE.getLeft()][MAP_SIZE.getRight()];
+                String [][] map = new String[this.mapX][this.mapY];
                 int maximalLength = 0;
 
-                Maptrix beliefMap = (Maptrix) pv.value;
-
-                for (int x = 0; x < MAP_SIZE.getLeft(); x++)
-                    for (int y = 0; y < MAP_SIZE.getRight(); y++) {
+                for (int x = 0; x < this.mapX; x++)
+                    for (int y = 0; y < this.mapY; y++) {
                         if (pv.propertyName.equals("PatientsBeliefMap"))
-                            map[x][y] = "" + ((TimedValue) beliefMap.getValue(x, y)).toString();
+                            map[x][y] = "" + ((TimedValue) ((Maptrix) pv.value).getValue(x, y)).toString();
                         else if (pv.propertyName.equals("PulloutBeliefMap"))
-                            map[x][y] = "" + ((boolean) beliefMap.getValue(x, y) ? ANSI_GREEN + "C" + ANSI_RESET : ANSI_RED + "P" + ANSI_RESET);
+                            map[x][y] = "" + (((BooleanGrid) pv.value).getValue(x, y) ? ANSI_GREEN + "C" + ANSI_RESET : ANSI_RED + "P" + ANSI_RESET);
                         else {
                             System.out.println("Undefined belief");
                             System.exit(1);
@@ -308,11 +398,11 @@ public class MCIResponseWorld extends World {
 
                 String horizontal = String.join("", Collections.nCopies(maximalLength, "─"));
 
-                System.out.println("┌" + String.join("┬", Collections.nCopies(MAP_SIZE.getLeft(), horizontal)) + "┐");
+                System.out.println("┌" + String.join("┬", Collections.nCopies(this.mapX, horizontal)) + "┐");
 
-                for (int y = 0; y < MAP_SIZE.getRight(); y++) {
+                for (int y = 0; y < this.mapY; y++) {
                     System.out.print("│");
-                    for (int x = 0; x < MAP_SIZE.getLeft(); x++) {
+                    for (int x = 0; x < this.mapX; x++) {
                         if (map[x][y] == null)
                             System.out.print(StringUtils.repeat(" ", stringFactor * maximalLength));
                         else
@@ -320,18 +410,18 @@ public class MCIResponseWorld extends World {
                         System.out.print("│");
                     }
                     System.out.println("");
-                    if (y < MAP_SIZE.getRight() - 1)
-                        System.out.println("├" + String.join("┼", Collections.nCopies(MAP_SIZE.getLeft(), horizontal)) + "┤");
+                    if (y < this.mapY - 1)
+                        System.out.println("├" + String.join("┼", Collections.nCopies(this.mapX, horizontal)) + "┤");
                 }
 
-                System.out.println("└" + String.join("┴", Collections.nCopies(MAP_SIZE.getLeft(), horizontal)) + "┘");
+                System.out.println("└" + String.join("┴", Collections.nCopies(this.mapX, horizontal)) + "┘");
             }
         }
     }
     private void printCurrentMap(Snapshot snapshot) {
         ArrayList<PropertyValue> prop = snapshot.getProperties();
-        String [][] map = new String[MAP_SIZE.getLeft()][MAP_SIZE.getRight()];
-        int[] maximalLength = new int[Math.max(MAP_SIZE.getLeft(), MAP_SIZE.getRight())];
+        String [][] map = new String[this.mapX][this.mapY];
+        int[] maximalLength = new int[Math.max(this.mapX, this.mapY)];
 
         for (PropertyValue pv : prop) {
            if (pv.propertyName.equals("Location")) {
@@ -357,13 +447,13 @@ public class MCIResponseWorld extends World {
 //        maximalLength = (maximalLength + 1) / stringFactor; // roundup for division by 2
 
         System.out.print("┌");
-        for (int x = 0; x < MAP_SIZE.getLeft() - 1; x++)
+        for (int x = 0; x < this.mapX - 1; x++)
             System.out.print(String.join("", Collections.nCopies((maximalLength[x] + 1) / stringFactor, "─")) + "┬");
-        System.out.println(String.join("", Collections.nCopies((maximalLength[MAP_SIZE.getLeft() - 1] + 1) / stringFactor, "─")) + "┐");
+        System.out.println(String.join("", Collections.nCopies((maximalLength[this.mapX - 1] + 1) / stringFactor, "─")) + "┐");
 
-        for (int y = 0; y < MAP_SIZE.getRight(); y++) {
+        for (int y = 0; y < this.mapY; y++) {
             System.out.print("│");
-            for (int x = 0; x < MAP_SIZE.getLeft(); x++) {
+            for (int x = 0; x < this.mapX; x++) {
                 if (map[x][y] == null)
                     System.out.print(StringUtils.repeat(" ", (maximalLength[x] + 1) / stringFactor * stringFactor));
                 else
@@ -372,64 +462,54 @@ public class MCIResponseWorld extends World {
             }
             System.out.println("");
 
-            if (y < MAP_SIZE.getRight() - 1) {
+            if (y < this.mapY - 1) {
                 System.out.print("├");
-                for (int x = 0; x < MAP_SIZE.getLeft() - 1; x++)
+                for (int x = 0; x < this.mapX - 1; x++)
                     System.out.print(String.join("", Collections.nCopies((maximalLength[x] + 1) / stringFactor, "─")) + "┼");
-                System.out.println(String.join("", Collections.nCopies((maximalLength[MAP_SIZE.getLeft() - 1] + 1) / stringFactor, "─")) + "┤");
+                System.out.println(String.join("", Collections.nCopies((maximalLength[this.mapX - 1] + 1) / stringFactor, "─")) + "┤");
             }
         }
 
         System.out.print("└");
-        for (int x = 0; x < MAP_SIZE.getLeft() - 1; x++)
+        for (int x = 0; x < this.mapX - 1; x++)
             System.out.print(String.join("", Collections.nCopies((maximalLength[x] + 1) / stringFactor, "─")) + "┴");
-        System.out.println(String.join("", Collections.nCopies((maximalLength[MAP_SIZE.getLeft() - 1] + 1) / stringFactor, "─")) + "┘");
+        System.out.println(String.join("", Collections.nCopies((maximalLength[this.mapX - 1] + 1) / stringFactor, "─")) + "┘");
     }
 
-    public Set<Patient> getPulledoutPatients() {
-        Set<Patient> pulledoutPatients = new HashSet<Patient>();
-
-        for (Patient patient : this.patients) {
-            if (patient.getStatus() == Patient.Status.Pulledout) {
-                pulledoutPatients.add(patient);
-            }
-        }
+    public void setPatientStatus(Patient patient, Patient.Status status) {
+        // Every status change of a patient goes through here, so that the patients stay indexed by status
+        if (patient.getStatus() == status)
+            return;
 
-        return pulledoutPatients;
+        this.patientIndex.move(patient.getId(), patient.getStatus(), status);
+        patient.setStatus(status);
     }
 
-    public Set<Patient> getPulledoutPatients(Location location) {
-        Set<Patient> pulledoutPatients = new HashSet<Patient>();
+    public int getNumberOfPatients(Patient.Status status) {
+        return this.patientIndex.count(status);
+    }
 
-        ArrayList<Patient> patients = this.patientsMap.getValue(location);
-        for (Patient patient : patients) {
-            if (patient.getStatus() == Patient.Status.Pulledout) {
-                pulledoutPatients.add(patient);
-            }
-        }
+    public Set<Patient> getPulledoutPatients() {
+        // A read-only view, in the order the patients were pulled out
+        return this.pulledoutPatients;
+    }
 
-        return pulledoutPatients;
+    public Set<Patient> getPulledoutPatients(Location location) {
+        // Pulled out from the location, whether or not they are still there
+        return this.patientIndex.view(this.patients, getCell(location), Patient.Status.Pulledout);
     }
 
     public ArrayList<Patient> getTrappedPatients(Location location) {
-        ArrayList<Patient> patients = this.patientsMap.getValue(location);
-        ArrayList<Patient> trappedPatients = new ArrayList<Patient>();
-
-        for (Patient patient : patients)
-            if (patient.getStatus() == Patient.Status.Trapped)
-                trappedPatients.add(patient);
+        return new ArrayList<Patient>(this.patientIndex.view(this.patients, getCell(location), Patient.Status.Trapped));
+    }
 
-        return trappedPatients;
+    public Patient getTrappedPatient(Location location) {
+        // The first trapped patient at the location, null if there is none
+        int id = this.patientIndex.first(getCell(location), Patient.Status.Trapped);
+        return id < 0 ? null : this.patients.get(id);
     }
 
     public int getNumberOfTrappedPatient(Location location) {
-        ArrayList<Patient> patients = this.patientsMap.getValue(location);
-
-        int numTrapped = 0;
-        for (Patient patient : patients)
-            if (patient.getStatus() == Patient.Status.Trapped)
-                numTrapped++;
-
-        return numTrapped;
+        return this.patientIndex.count(getCell(location), Patient.Status.Trapped);
     }
 }
@@ -0,0 +1,20 @@
+package simvasos.scenario.mciresponse;
+
+import simvasos.simulation.component.Message.Key;
+import simvasos.simulation.util.BooleanGrid;
+import simvasos.simulation.util.Location;
+
+// Payload of the messages exchanged by the MCI response CSs
+public final class MessageKeys {
+    public static final Key<BooleanGrid> PULLOUT_BELIEF = new Key<BooleanGrid>("PulloutBelief");
+    public static final Key<Location> PULLOUT_LOCATION = new Key<Location>("PulloutLocation");
+    public static final Key<Location> HEADING_LOCATION = new Key<Location>("HeadingLocation");
+    public static final Key<Integer> ADDITIONAL_BENEFIT = new Key<Integer>("AdditionalBenefit");
+    public static final Key<Boolean> ACCEPTED = new Key<Boolean>("Accepted");
+    public static final Key<Integer> CAPACITY = new Key<Integer>("Capacity");
+    public static final Key<Patient> PATIENT = new Key<Patient>("Patient");
+    public static final Key<Boolean> HOSPITALIZED = new Key<Boolean>("Hospitalized");
+
+    private MessageKeys() {
+    }
+}
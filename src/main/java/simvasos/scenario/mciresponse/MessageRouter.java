@@ -0,0 +1,155 @@
+package simvasos.scenario.mciresponse;
+
+import simvasos.modelparsing.modeling.ABCPlus.ABCPlusCS;
+import simvasos.simulation.component.Agent;
+import simvasos.simulation.component.Message;
+import simvasos.simulation.util.IntGrid;
+import simvasos.simulation.util.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Delivery of messages to the CSs of a world, by receiver name prefix and, for located messages, by position.
+ *
+ * The CSs matching a receiver prefix are looked up once and kept, in the order of the world. Positions are indexed
+ * on the first located message of a tick and dropped when the world progresses; agents move only through normal
+ * actions, after the messages of the tick are delivered.
+ */
+class MessageRouter {
+    private final ArrayList<Agent> agents;
+    private final int mapX;
+    private final int mapY;
+
+    private int nIndexedAgent = -1;
+    private final ArrayList<ABCPlusCS> css = new ArrayList<ABCPlusCS>();
+    private final HashMap<String, ArrayList<ABCPlusCS>> receivers = new HashMap<String, ArrayList<ABCPlusCS>>();
+
+    // Per cell, a chain of CS indices (into css) in the order of the world; CSs off the map are chained apart.
+    // Only the cells of the CSs are set, and cleared again before the next indexing
+    private boolean positionsIndexed = false;
+    private final IntGrid firstInCell; // 1 + the first index, 0 for an empty cell
+    private int[] nextInCell = new int[0];
+    private int[] indexedCell = new int[0]; // Per CS, -1 if off the map
+    private int firstOffMap = -1;
+
+    public MessageRouter(ArrayList<Agent> agents, int mapX, int mapY) {
+        this.agents = agents;
+        this.mapX = mapX;
+        this.mapY = mapY;
+        this.firstInCell = new IntGrid(mapX, mapY);
+    }
+
+    public int deliver(Message message) {
+        // Returns the number of receivers
+        updateAgents();
+
+        if (message.location == null)
+            return deliverToAll(message);
+        else
+            return deliverAt(message);
+    }
+
+    public void invalidatePositions() {
+        this.positionsIndexed = false;
+    }
+
+    private int deliverToAll(Message message) {
+        ArrayList<ABCPlusCS> receivers = this.receivers.get(message.receiver);
+
+        if (receivers == null) {
+            receivers = new ArrayList<ABCPlusCS>();
+            for (ABCPlusCS cs : this.css)
+                if (cs.getName().startsWith(message.receiver))
+                    receivers.add(cs);
+
+            this.receivers.put(message.receiver, receivers);
+        }
+
+        int nReceiver = 0;
+        for (int i = 0; i < receivers.size(); i++) {
+            ABCPlusCS cs = receivers.get(i);
+            if (cs.getName().equals(message.sender))
+                continue;
+
+            cs.receiveMessage(message);
+            nReceiver++;
+        }
+
+        return nReceiver;
+    }
+
+    private int deliverAt(Message message) {
+        if (!this.positionsIndexed)
+            indexPositions();
+
+        int x = message.location.getX();
+        int y = message.location.getY();
+        int first = isOnMap(x, y) ? this.firstInCell.getValue(x, y) - 1 : this.firstOffMap;
+
+        int nReceiver = 0;
+        for (int i = first; i >= 0; i = this.nextInCell[i]) {
+            ABCPlusCS cs = this.css.get(i);
+            if (cs.getName().equals(message.sender) || !cs.getName().startsWith(message.receiver))
+                continue;
+
+            if (message.location.equals(cs.getLocation())) {
+                cs.receiveMessage(message);
+                nReceiver++;
+            }
+        }
+
+        return nReceiver;
+    }
+
+    private void updateAgents() {
+        // Agents are only added, either to a new world or to a forked one
+        if (this.agents.size() == this.nIndexedAgent)
+            return;
+
+        this.css.clear();
+        for (Agent agent : this.agents)
+            if (agent instanceof ABCPlusCS)
+                this.css.add((ABCPlusCS) agent);
+
+        this.receivers.clear();
+        this.firstInCell.clear();
+        this.nextInCell = new int[this.css.size()];
+        this.indexedCell = new int[this.css.size()];
+        Arrays.fill(this.indexedCell, -1);
+        this.positionsIndexed = false;
+        this.nIndexedAgent = this.agents.size();
+    }
+
+    private void indexPositions() {
+        for (int i = 0; i < this.indexedCell.length; i++)
+            if (this.indexedCell[i] >= 0) {
+                this.firstInCell.setValueAt(this.indexedCell[i], 0);
+                this.indexedCell[i] = -1;
+            }
+        this.firstOffMap = -1;
+
+        // Backwards, so that every chain is in the order of the world
+        for (int i = this.css.size() - 1; i >= 0; i--) {
+            Location location = this.css.get(i).getLocation();
+            if (location == null) {
+                this.nextInCell[i] = -1;
+            } else if (isOnMap(location.getX(), location.getY())) {
+                int cell = this.firstInCell.getCell(location.getX(), location.getY());
+                this.nextInCell[i] = this.firstInCell.getValueAt(cell) - 1;
+                this.firstInCell.setValueAt(cell, i + 1);
+                this.indexedCell[i] = cell;
+            } else {
+                this.nextInCell[i] = this.firstOffMap;
+                this.firstOffMap = i;
+            }
+        }
+
+        this.positionsIndexed = true;
+    }
+
+    private boolean isOnMap(int x, int y) {
+        return x >= 0 && x < this.mapX && y >= 0 && y < this.mapY;
+    }
+}
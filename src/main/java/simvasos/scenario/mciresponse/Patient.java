@@ -3,118 +3,66 @@ package simvasos.scenario.mciresponse;
 import simvasos.simulation.analysis.HasName;
 import simvasos.simulation.util.*;
 
-import java.util.Random;
-
+/**
+ * Handle on a patient of a world; the state of the patient is kept in the PatientStore of the world.
+ */
 public class Patient implements HasName {
-    private final Random random;
-
     public enum Status {Trapped, Pulledout, OnTransport, Hospitalized, Cured, Dead}
     public enum Severity {Delayed, Immediate}
 
-    private final String name;
-    private Status status;
-    private Severity severity;
-    private int lifePoint;
-    private Location location;
-
-    public Patient(Random random, String name) {
-        this.random = random;
-        this.name = name;
+    private final PatientStore store;
+    private final int id;
 
-        this.reset();
+    Patient(PatientStore store, int id) {
+        this.store = store;
+        this.id = id;
     }
 
-    public void reset() {
-        this.status = Status.Trapped;
-        this.severity = this.random.nextInt(2) == 1 ? Severity.Immediate : Severity.Delayed;
-        this.lifePoint = 50;
-        this.location = new Location(0, 0);
+    public int getId() {
+        return id;
     }
 
     public Status getStatus() {
-        return status;
+        return this.store.getStatus(this.id);
     }
 
-    public void setStatus(Status status) {
-        this.status = status;
+    void setStatus(Status status) {
+        // Through MCIResponseWorld.setPatientStatus(), which keeps the patients indexed by status
+        this.store.setStatus(this.id, status);
     }
 
     public Severity getSeverity() {
-        return severity;
+        return this.store.getSeverity(this.id);
     }
 
     public int getLifePoint() {
-        return lifePoint;
+        return this.store.getLifePoint(this.id);
     }
 
-    public Location getLocation() {
-        return this.location;
+    public int getX() {
+        return this.store.getX(this.id);
     }
 
-    public void setLocation(Location location) {
-        this.location = location;
+    public int getY() {
+        return this.store.getY(this.id);
     }
 
-    public void bleed() {
-        switch (this.status) {
-            case Dead:
-                // This patient is already dead
-            case Cured:
-                // This patient is cured and left the hospital;
-            case Hospitalized:
-                // This patient is under treatment
-            case Trapped:
-                // This patient is not yet pulled out by fire fighters
-                break;
-
-            case Pulledout:
-            case OnTransport:
-                // Once the patient is pulled out, it bleeds and loose its life points
-                int bleedPoint = 0;
-                if (this.severity == Severity.Immediate)
-                    bleedPoint = 10;
-                else
-                    bleedPoint = 5;
-
-//                this.lifePoint = Math.max(0, this.lifePoint - bleedPoint);
-
-                if (this.lifePoint == 0)
-                    this.status = Status.Dead;
+    public Location getLocation() {
+        // A new Location on every call; use getX() and getY() on hot paths
+        return new Location(getX(), getY());
+    }
 
-                break;
-        }
+    public void setLocation(Location location) {
+        // The patient takes the coordinates of the location, it does not follow it
+        this.store.setLocation(this.id, location.getX(), location.getY());
     }
 
     public String getName() {
-        String stat = "";
-        switch (this.status) {
-            case Trapped:
-                stat = "Trapped";
-                break;
-            case Pulledout:
-                stat = "Pulledout";
-                break;
-            case OnTransport:
-                stat = "OnTransport";
-                break;
-            case Hospitalized:
-                stat = "Hospitalized";
-                break;
-            case Cured:
-                stat = "Cured";
-                break;
-            case Dead:
-                stat = "Dead";
-                break;
-            default:
-                stat = "Error";
-        }
-
-        return this.name;
+        return "Patient" + (this.id + 1);
     }
 
     @Override
     public String getSymbol() {
-        return this.name.replace("Patient", "P");
+        return "P" + (this.id + 1);
     }
 }
@@ -0,0 +1,246 @@
+package simvasos.scenario.mciresponse;
+
+import simvasos.simulation.util.IntGrid;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Patients of a world by status, in total and per cell of the map where they were found.
+ *
+ * Every status change goes through the world, which moves the patient between the lists here, so that counts and
+ * members are available without scanning the patients. A patient is in exactly one status at a time, so the lists
+ * are chained through arrays indexed by patient id; they keep the order in which patients entered them.
+ *
+ * Only the cells with patients get a slot for their lists, so that the index does not grow with the map.
+ */
+class PatientIndex {
+    private static final int N_STATUS = Patient.Status.values().length;
+
+    // Per status
+    private final int[] first = new int[N_STATUS];
+    private final int[] last = new int[N_STATUS];
+    private final int[] count = new int[N_STATUS];
+
+    // Per (slot, status)
+    private final IntGrid slotOf; // 1 + the slot of a cell, 0 for a cell without a slot
+    private int nSlot = 0;
+    private int[] cellFirst = new int[0];
+    private int[] cellLast = new int[0];
+    private int[] cellCount = new int[0];
+
+    // Per patient id; -1 ends a list
+    private final int[] next;
+    private final int[] prev;
+    private final int[] cellNext;
+    private final int[] cellPrev;
+    private final int[] cellOf;
+
+    public PatientIndex(int xSize, int ySize, int nPatient) {
+        this.slotOf = new IntGrid(xSize, ySize);
+
+        this.next = new int[nPatient];
+        this.prev = new int[nPatient];
+        this.cellNext = new int[nPatient];
+        this.cellPrev = new int[nPatient];
+        this.cellOf = new int[nPatient];
+
+        clear();
+    }
+
+    public void clear() {
+        Arrays.fill(this.first, -1);
+        Arrays.fill(this.last, -1);
+        Arrays.fill(this.count, 0);
+
+        this.slotOf.clear();
+        this.nSlot = 0;
+    }
+
+    public void copyFrom(PatientIndex index) {
+        System.arraycopy(index.first, 0, this.first, 0, N_STATUS);
+        System.arraycopy(index.last, 0, this.last, 0, N_STATUS);
+        System.arraycopy(index.count, 0, this.count, 0, N_STATUS);
+
+        this.slotOf.copyFrom(index.slotOf);
+        this.nSlot = index.nSlot;
+        this.cellFirst = index.cellFirst.clone();
+        this.cellLast = index.cellLast.clone();
+        this.cellCount = index.cellCount.clone();
+
+        System.arraycopy(index.next, 0, this.next, 0, this.next.length);
+        System.arraycopy(index.prev, 0, this.prev, 0, this.prev.length);
+        System.arraycopy(index.cellNext, 0, this.cellNext, 0, this.cellNext.length);
+        System.arraycopy(index.cellPrev, 0, this.cellPrev, 0, this.cellPrev.length);
+        System.arraycopy(index.cellOf, 0, this.cellOf, 0, this.cellOf.length);
+    }
+
+    public void add(int id, int cell, Patient.Status status) {
+        this.cellOf[id] = cell;
+        enter(id, status.ordinal());
+    }
+
+    public void move(int id, Patient.Status from, Patient.Status to) {
+        leave(id, from.ordinal());
+        enter(id, to.ordinal());
+    }
+
+    public int getCell(int id) {
+        // The cell the patient was found at
+        return this.cellOf[id];
+    }
+
+    public int count(Patient.Status status) {
+        return this.count[status.ordinal()];
+    }
+
+    public int first(Patient.Status status) {
+        return this.first[status.ordinal()];
+    }
+
+    public int next(int id) {
+        // The patient after the given one in the list of its status, -1 if there is none
+        return this.next[id];
+    }
+
+    public int count(int cell, Patient.Status status) {
+        int slot = this.slotOf.getValueAt(cell) - 1;
+        return slot < 0 ? 0 : this.cellCount[slot * N_STATUS + status.ordinal()];
+    }
+
+    public int first(int cell, Patient.Status status) {
+        int slot = this.slotOf.getValueAt(cell) - 1;
+        return slot < 0 ? -1 : this.cellFirst[slot * N_STATUS + status.ordinal()];
+    }
+
+    public Set<Patient> view(List<Patient> patients, Patient.Status status) {
+        // Read-only, follows the index
+        return new PatientSet(patients, -1, status);
+    }
+
+    public Set<Patient> view(List<Patient> patients, int cell, Patient.Status status) {
+        return new PatientSet(patients, cell, status);
+    }
+
+    private void enter(int id, int status) {
+        int i = getSlot(this.cellOf[id]) * N_STATUS + status;
+
+        this.prev[id] = this.last[status];
+        this.next[id] = -1;
+        if (this.last[status] >= 0)
+            this.next[this.last[status]] = id;
+        else
+            this.first[status] = id;
+        this.last[status] = id;
+        this.count[status]++;
+
+        this.cellPrev[id] = this.cellLast[i];
+        this.cellNext[id] = -1;
+        if (this.cellLast[i] >= 0)
+            this.cellNext[this.cellLast[i]] = id;
+        else
+            this.cellFirst[i] = id;
+        this.cellLast[i] = id;
+        this.cellCount[i]++;
+    }
+
+    private void leave(int id, int status) {
+        int i = (this.slotOf.getValueAt(this.cellOf[id]) - 1) * N_STATUS + status;
+
+        if (this.prev[id] >= 0)
+            this.next[this.prev[id]] = this.next[id];
+        else
+            this.first[status] = this.next[id];
+        if (this.next[id] >= 0)
+            this.prev[this.next[id]] = this.prev[id];
+        else
+            this.last[status] = this.prev[id];
+        this.count[status]--;
+
+        if (this.cellPrev[id] >= 0)
+            this.cellNext[this.cellPrev[id]] = this.cellNext[id];
+        else
+            this.cellFirst[i] = this.cellNext[id];
+        if (this.cellNext[id] >= 0)
+            this.cellPrev[this.cellNext[id]] = this.cellPrev[id];
+        else
+            this.cellLast[i] = this.cellPrev[id];
+        this.cellCount[i]--;
+    }
+
+    private int getSlot(int cell) {
+        // The slot of the cell, a new one with empty lists if it has none
+        int slot = this.slotOf.getValueAt(cell) - 1;
+        if (slot >= 0)
+            return slot;
+
+        slot = this.nSlot++;
+        this.slotOf.setValueAt(cell, slot + 1);
+
+        if (this.cellFirst.length < this.nSlot * N_STATUS) {
+            int length = Math.max(this.nSlot, 2 * this.cellFirst.length / N_STATUS) * N_STATUS;
+            this.cellFirst = Arrays.copyOf(this.cellFirst, length);
+            this.cellLast = Arrays.copyOf(this.cellLast, length);
+            this.cellCount = Arrays.copyOf(this.cellCount, length);
+        }
+
+        Arrays.fill(this.cellFirst, slot * N_STATUS, this.nSlot * N_STATUS, -1);
+        Arrays.fill(this.cellLast, slot * N_STATUS, this.nSlot * N_STATUS, -1);
+        Arrays.fill(this.cellCount, slot * N_STATUS, this.nSlot * N_STATUS, 0);
+        return slot;
+    }
+
+    private class PatientSet extends AbstractSet<Patient> {
+        private final List<Patient> patients;
+        private final int cell; // -1 for the whole map
+        private final Patient.Status status;
+
+        PatientSet(List<Patient> patients, int cell, Patient.Status status) {
+            this.patients = patients;
+            this.cell = cell;
+            this.status = status;
+        }
+
+        @Override
+        public int size() {
+            return this.cell < 0 ? count(this.status) : count(this.cell, this.status);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Patient))
+                return false;
+
+            Patient patient = (Patient) o;
+            int id = patient.getId();
+            return id < this.patients.size() && this.patients.get(id) == patient && patient.getStatus() == this.status
+                    && (this.cell < 0 || PatientIndex.this.cellOf[id] == this.cell);
+        }
+
+        @Override
+        public Iterator<Patient> iterator() {
+            return new Iterator<Patient>() {
+                private int id = PatientSet.this.cell < 0 ? first(PatientSet.this.status) : first(PatientSet.this.cell, PatientSet.this.status);
+
+                @Override
+                public boolean hasNext() {
+                    return this.id >= 0;
+                }
+
+                @Override
+                public Patient next() {
+                    if (this.id < 0)
+                        throw new NoSuchElementException();
+
+                    Patient patient = PatientSet.this.patients.get(this.id);
+                    this.id = PatientSet.this.cell < 0 ? PatientIndex.this.next[this.id] : PatientIndex.this.cellNext[this.id];
+                    return patient;
+                }
+            };
+        }
+    }
+}
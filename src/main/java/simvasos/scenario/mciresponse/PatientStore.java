@@ -0,0 +1,106 @@
+package simvasos.scenario.mciresponse;
+
+import java.util.Random;
+
+/**
+ * Patients of a world in parallel primitive arrays, indexed by patient id; a Patient is a handle on one of them.
+ *
+ * Locations are packed in an int each, x in the high half and y in the low half; a coordinate thus ranges over 0 to
+ * MAX_COORDINATE, which MCIResponseWorld checks for the size of its map.
+ */
+class PatientStore {
+    public static final int MAX_COORDINATE = Short.MAX_VALUE;
+
+    private static final Patient.Status[] STATUSES = Patient.Status.values();
+    private static final Patient.Severity[] SEVERITIES = Patient.Severity.values();
+
+    private static final int INITIAL_LIFE_POINT = 50;
+
+    private final byte[] status;
+    private final byte[] severity;
+    private final int[] lifePoint;
+    private final int[] location;
+
+    public PatientStore(int nPatient) {
+        this.status = new byte[nPatient];
+        this.severity = new byte[nPatient];
+        this.lifePoint = new int[nPatient];
+        this.location = new int[nPatient];
+    }
+
+    public PatientStore(PatientStore store) {
+        this.status = store.status.clone();
+        this.severity = store.severity.clone();
+        this.lifePoint = store.lifePoint.clone();
+        this.location = store.location.clone();
+    }
+
+    public int size() {
+        return this.status.length;
+    }
+
+    public void reset(int id, Random random) {
+        this.status[id] = (byte) Patient.Status.Trapped.ordinal();
+        this.severity[id] = (byte) (random.nextInt(2) == 1 ? Patient.Severity.Immediate : Patient.Severity.Delayed).ordinal();
+        this.lifePoint[id] = INITIAL_LIFE_POINT;
+        this.location[id] = 0;
+    }
+
+    public Patient.Status getStatus(int id) {
+        return STATUSES[this.status[id]];
+    }
+
+    public void setStatus(int id, Patient.Status status) {
+        this.status[id] = (byte) status.ordinal();
+    }
+
+    public Patient.Severity getSeverity(int id) {
+        return SEVERITIES[this.severity[id]];
+    }
+
+    public int getLifePoint(int id) {
+        return this.lifePoint[id];
+    }
+
+    public int getX(int id) {
+        return this.location[id] >> 16;
+    }
+
+    public int getY(int id) {
+        return (short) this.location[id];
+    }
+
+    public void setLocation(int id, int x, int y) {
+        this.location[id] = (x << 16) | (y & 0xFFFF);
+    }
+
+    public boolean bleed(int id) {
+        // Returns whether the patient bled out; the world then marks it dead
+        switch (STATUSES[this.status[id]]) {
+            case Dead:
+                // This patient is already dead
+            case Cured:
+                // This patient is cured and left the hospital;
+            case Hospitalized:
+                // This patient is under treatment
+            case Trapped:
+                // This patient is not yet pulled out by fire fighters
+                break;
+
+            case Pulledout:
+            case OnTransport:
+                // Once the patient is pulled out, it bleeds and loose its life points
+                int bleedPoint = 0;
+                if (this.severity[id] == Patient.Severity.Immediate.ordinal())
+                    bleedPoint = 10;
+                else
+                    bleedPoint = 5;
+
+//                this.lifePoint[id] = Math.max(0, this.lifePoint[id] - bleedPoint);
+
+                return this.lifePoint[id] == 0;
+        }
+
+        return false;
+    }
+}
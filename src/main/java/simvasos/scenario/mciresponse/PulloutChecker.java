@@ -1,10 +1,8 @@
 package simvasos.scenario.mciresponse;
 
 import simvasos.propcheck.pattern.ExistenceChecker;
-import simvasos.simulation.analysis.PropertyValue;
-import simvasos.simulation.analysis.Snapshot;
-
-import java.util.ArrayList;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
 
 public class PulloutChecker extends ExistenceChecker {
     int expectedPullout;
@@ -15,18 +13,23 @@ public class PulloutChecker extends ExistenceChecker {
         this.expectedPullout = expectedPullout;
     }
 
+    private int pulledoutId = -1;
+
+    @Override
+    public void bind(TraceSchema schema) {
+        this.pulledoutId = schema.getWorldPropertyId("Pulledout");
+    }
+
+    @Override
+    public boolean evaluate(Trace trace, int tick) {
+        if (this.pulledoutId < 0)
+            return true;
+
+        return trace.getInt(this.pulledoutId, tick) >= this.expectedPullout;
+    }
+
     @Override
-    public boolean evaluate(Snapshot snapshot) {
-        // Override me to evaluate whatever you want
-        ArrayList<PropertyValue> properties = snapshot.getProperties();
-
-        boolean res = true;
-        for (PropertyValue pv : properties) {
-            if (!pv.isAgent && pv.propertyName.equals("Pulledout"))
-                res = (int) pv.value >= this.expectedPullout ? true : false;
-        }
-
-        // Return
-        return res;
+    public boolean needsEveryTick() {
+        return false;
     }
 }
@@ -1,18 +1,24 @@
 package simvasos.scenario.mciresponse.entity;
 
-import simvasos.modelparsing.modeling.ABCPlus.ABCItem;
 import simvasos.modelparsing.modeling.ABCPlus.ABCPlusCS;
 import simvasos.scenario.mciresponse.MCIResponseWorld;
+import simvasos.scenario.mciresponse.MessageKeys;
 import simvasos.scenario.mciresponse.Patient;
 import simvasos.scenario.mciresponse.MCIResponseScenario.SoSType;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
 import simvasos.simulation.util.*;
 import simvasos.simulation.component.Action;
+import simvasos.simulation.component.Agent;
 import simvasos.simulation.component.Message;
 import simvasos.simulation.component.World;
 
 import java.util.*;
 
 public class Ambulance extends ABCPlusCS {
+    private final int mapX = ((MCIResponseWorld) this.world).getMapX();
+    private final int mapY = ((MCIResponseWorld) this.world).getMapY();
+
     LinkedHashMap<String, Location> hospitalLocations = new LinkedHashMap<String, Location>();
     LinkedHashMap<String, Integer> hospitalCapacities = new LinkedHashMap<String, Integer>();
 
@@ -28,6 +34,10 @@ public class Ambulance extends ABCPlusCS {
     private Patient targetPatient = null;
     private Location headingLocation = null;
 
+    // Indexed by Direction
+    private final Move[] moves = {null, new Move(Direction.LEFT), new Move(Direction.RIGHT), new Move(Direction.UP), new Move(Direction.DOWN)};
+    private final Action setTargetPatient = new SetTargetPatient(null);
+
     public Ambulance(World world, String name, Location location) {
         super(world);
 
@@ -36,6 +46,26 @@ public class Ambulance extends ABCPlusCS {
         this.reset();
     }
 
+    private Ambulance(World world, Ambulance ambulance) {
+        super(world, ambulance);
+
+        this.hospitalLocations.putAll(ambulance.hospitalLocations);
+        this.hospitalCapacities.putAll(ambulance.hospitalCapacities);
+
+        this.initialLocation = ambulance.initialLocation;
+        this.location = new Location(ambulance.location);
+        this.lastDirection = ambulance.lastDirection;
+        this.status = ambulance.status;
+
+        this.targetPatient = ((MCIResponseWorld) world).getPatient(ambulance.targetPatient);
+        this.headingLocation = ambulance.headingLocation == null ? null : new Location(ambulance.headingLocation);
+    }
+
+    @Override
+    public Agent fork(World world) {
+        return new Ambulance(world, this);
+    }
+
     public void setHospitalInformation(HashMap<String, Location> hospitalLocations, HashMap<String, Integer> hospitalCapacities) {
         this.hospitalLocations.clear();
         this.hospitalCapacities.clear();
@@ -53,12 +83,12 @@ public class Ambulance extends ABCPlusCS {
     protected void consumeInformation() {
         for (Message message : this.incomingInformation) {
             // Capacity response from hospitals at this location
-            if (message.sender.startsWith("Hospital") && message.purpose == Message.Purpose.Response && message.data.containsKey("Capacity")) {
-                this.hospitalCapacities.put(message.sender, (Integer) message.data.get("Capacity"));
+            if (message.sender.startsWith("Hospital") && message.purpose == Message.Purpose.Response && message.has(MessageKeys.CAPACITY)) {
+                this.hospitalCapacities.put(message.sender, message.get(MessageKeys.CAPACITY));
 
             // Hospitalize response from the hospital
-            } else if (message.sender.startsWith("Hospital") && message.purpose == Message.Purpose.Response && message.data.containsKey("Hospitalized")) {
-                boolean isHospitalized = (boolean) message.data.get("Hospitalized");
+            } else if (message.sender.startsWith("Hospital") && message.purpose == Message.Purpose.Response && message.has(MessageKeys.HOSPITALIZED)) {
+                boolean isHospitalized = message.get(MessageKeys.HOSPITALIZED);
                 if (isHospitalized) {
                     this.targetPatient = null;
                     this.headingLocation = null;
@@ -76,47 +106,47 @@ public class Ambulance extends ABCPlusCS {
     @Override
     protected void generateActiveImmediateActions() {
         // Request hospital capacity
-        switch ((SoSType) this.world.getResources().get("Type")) {
+        switch (((MCIResponseWorld) this.world).getSoSType()) {
             default:
-                Message capacityRequest = new Message();
+                Message capacityRequest = newMessage();
                 capacityRequest.name = "Request hospital capacity";
                 capacityRequest.sender = this.getName();
                 capacityRequest.receiver = "Hospital";
                 capacityRequest.purpose = Message.Purpose.ReqInfo;
-                capacityRequest.data.put("Capacity", null);
+                capacityRequest.put(MessageKeys.CAPACITY, null);
 
-                this.immediateActionList.add(new ABCItem(new SendMessage(capacityRequest), 10, 1));
+                this.immediateActionList.add(newItem(newSendMessage(capacityRequest), 10, 1));
         }
 
         // Set a target patient at this location
         if (this.targetPatient == null) {
-            switch ((SoSType) this.world.getResources().get("Type")) {
+            switch (((MCIResponseWorld) this.world).getSoSType()) {
                 default:
-                    this.immediateActionList.add(new ABCItem(new SetTargetPatient(null), 5, 0));
-                    this.immediateActionList.add(new ABCItem(this.pickUpAndStartTransport, 4, 0));
+                    this.immediateActionList.add(newItem(this.setTargetPatient, 5, 0));
+                    this.immediateActionList.add(newItem(this.pickUpAndStartTransport, 4, 0));
             }
 
         // Try to pick up a patient and start transporting (when it meets the patient
         } else if (this.headingLocation.equals(this.location) && this.status == Status.EMPTY) {
-            switch ((SoSType) this.world.getResources().get("Type")) {
+            switch (((MCIResponseWorld) this.world).getSoSType()) {
                 default:
-                    this.immediateActionList.add(new ABCItem(this.pickUpAndStartTransport, 4, 0));
+                    this.immediateActionList.add(newItem(this.pickUpAndStartTransport, 4, 0));
                     break;
             }
 
         // Try to release the patient to the hospital
         } else if (this.headingLocation.equals(this.location) && this.status == Status.OCCUPIED) {
-            switch ((SoSType) this.world.getResources().get("Type")) {
+            switch (((MCIResponseWorld) this.world).getSoSType()) {
                 default:
-                    Message releasePatientToHospital = new Message();
+                    Message releasePatientToHospital = newMessage();
                     releasePatientToHospital.name = "Request hospitalizing this patient";
                     releasePatientToHospital.sender = this.getName();
                     releasePatientToHospital.receiver = "Hospital";
                     releasePatientToHospital.location = this.location;
                     releasePatientToHospital.purpose = Message.Purpose.ReqAction;
-                    releasePatientToHospital.data.put("Patient", this.targetPatient);
+                    releasePatientToHospital.put(MessageKeys.PATIENT, this.targetPatient);
 
-                    this.immediateActionList.add(new ABCItem(new SendMessage(releasePatientToHospital), 3, 1));
+                    this.immediateActionList.add(newItem(newSendMessage(releasePatientToHospital), 3, 1));
                     break;
             }
         }
@@ -134,25 +164,25 @@ public class Ambulance extends ABCPlusCS {
         if (this.targetPatient == null) {
             // Random search
             if (Ambulance.this.location.getX() > 0 && lastDirection != Direction.RIGHT)
-                normalActionList.add(new ABCItem(new Move(Direction.LEFT), 0, calculateMoveCost(Direction.LEFT, false)));
-            if (Ambulance.this.location.getX() < MCIResponseWorld.MAP_SIZE.getLeft() - 1 && lastDirection != Direction.LEFT)
-                normalActionList.add(new ABCItem(new Move(Direction.RIGHT), 0, calculateMoveCost(Direction.RIGHT, false)));
+                normalActionList.add(newItem(this.moves[Direction.LEFT.ordinal()], 0, calculateMoveCost(Direction.LEFT, false)));
+            if (Ambulance.this.location.getX() < this.mapX - 1 && lastDirection != Direction.LEFT)
+                normalActionList.add(newItem(this.moves[Direction.RIGHT.ordinal()], 0, calculateMoveCost(Direction.RIGHT, false)));
             if (Ambulance.this.location.getY() > 0 && lastDirection != Direction.DOWN)
-                normalActionList.add(new ABCItem(new Move(Direction.UP), 0, calculateMoveCost(Direction.UP, false)));
-            if (Ambulance.this.location.getY() < MCIResponseWorld.MAP_SIZE.getRight() - 1 && lastDirection != Direction.UP)
-                normalActionList.add(new ABCItem(new Move(Direction.DOWN), 0, calculateMoveCost(Direction.DOWN, false)));
+                normalActionList.add(newItem(this.moves[Direction.UP.ordinal()], 0, calculateMoveCost(Direction.UP, false)));
+            if (Ambulance.this.location.getY() < this.mapY - 1 && lastDirection != Direction.UP)
+                normalActionList.add(newItem(this.moves[Direction.DOWN.ordinal()], 0, calculateMoveCost(Direction.DOWN, false)));
 
         // Heading to the patient to transport
         // OR Heading to the hospital to deliever
         } else {
             if (Ambulance.this.location.getX() > 0)
-                normalActionList.add(new ABCItem(new Move(Direction.LEFT), 0, calculateMoveCost(Direction.LEFT, true)));
-            if (Ambulance.this.location.getX() < MCIResponseWorld.MAP_SIZE.getLeft() - 1)
-                normalActionList.add(new ABCItem(new Move(Direction.RIGHT), 0, calculateMoveCost(Direction.RIGHT, true)));
+                normalActionList.add(newItem(this.moves[Direction.LEFT.ordinal()], 0, calculateMoveCost(Direction.LEFT, true)));
+            if (Ambulance.this.location.getX() < this.mapX - 1)
+                normalActionList.add(newItem(this.moves[Direction.RIGHT.ordinal()], 0, calculateMoveCost(Direction.RIGHT, true)));
             if (Ambulance.this.location.getY() > 0)
-                normalActionList.add(new ABCItem(new Move(Direction.UP), 0, calculateMoveCost(Direction.UP, true)));
-            if (Ambulance.this.location.getY() < MCIResponseWorld.MAP_SIZE.getRight() - 1)
-                normalActionList.add(new ABCItem(new Move(Direction.DOWN), 0, calculateMoveCost(Direction.DOWN, true)));
+                normalActionList.add(newItem(this.moves[Direction.UP.ordinal()], 0, calculateMoveCost(Direction.UP, true)));
+            if (Ambulance.this.location.getY() < this.mapY - 1)
+                normalActionList.add(newItem(this.moves[Direction.DOWN.ordinal()], 0, calculateMoveCost(Direction.DOWN, true)));
         }
     }
 
@@ -171,10 +201,10 @@ public class Ambulance extends ABCPlusCS {
         }
 
         if (headingTo) {
-            totalCost += this.headingLocation.distanceTo(this.location.add(deltaX, deltaY));
+            totalCost += this.headingLocation.distanceTo(this.location.getX() + deltaX, this.location.getY() + deltaY);
         } else {
             // Uncertainty
-            totalCost += this.world.random.nextInt(2);
+            totalCost += this.getRandom().nextInt(2);
         }
 
         return totalCost;
@@ -182,6 +212,8 @@ public class Ambulance extends ABCPlusCS {
 
     @Override
     public void reset() {
+        super.reset();
+
         this.lastDirection = Direction.NONE;
         this.location = new Location(this.initialLocation);
         this.status = Status.EMPTY;
@@ -199,6 +231,23 @@ public class Ambulance extends ABCPlusCS {
         return this.name.replace("Ambulance", "A");
     }
 
+    private int locationId;
+
+    @Override
+    public void registerProperties(TraceSchema schema) {
+        this.locationId = schema.register(this, "Location", TraceSchema.Type.LOCATION);
+    }
+
+    @Override
+    public void recordProperties(Trace trace) {
+        trace.setLocation(this.locationId, this.location);
+    }
+
+    @Override
+    public Location getLocation() {
+        return this.location;
+    }
+
     @Override
     public HashMap<String, Object> getProperties() {
         HashMap<String, Object> properties = new HashMap<String, Object>();
@@ -222,28 +271,29 @@ public class Ambulance extends ABCPlusCS {
 
             if (this.targetPatient != null) {
                 Ambulance.this.targetPatient = this.targetPatient;
-                Ambulance.this.headingLocation = new Location(this.targetPatient.getLocation());
+                Ambulance.this.headingLocation = this.targetPatient.getLocation();
             } else {
                 Set<Patient> pulledoutPatients = ((MCIResponseWorld) Ambulance.this.world).getPulledoutPatients();
 
                 if (!pulledoutPatients.isEmpty()) {
                     List<Patient> list = new ArrayList();
                     list.addAll(pulledoutPatients);
-                    Collections.shuffle(list, Ambulance.this.world.random);
+                    Collections.shuffle(list, Ambulance.this.getRandom());
                     list.sort(new Comparator<Patient>() {
 
                         @Override
                         public int compare(Patient o1, Patient o2) {
-                            int v1 = o1.getLocation().distanceTo(Ambulance.this.location);
-                            int v2 = o2.getLocation().distanceTo(Ambulance.this.location);
+                            int v1 = Ambulance.this.location.distanceTo(o1.getX(), o1.getY());
+                            int v2 = Ambulance.this.location.distanceTo(o2.getX(), o2.getY());
 
                             return v1 - v2;
                         }
                     });
 
-                    this.targetPatient = list.get(0);
-                    Ambulance.this.targetPatient = this.targetPatient;
-                    Ambulance.this.headingLocation = new Location(this.targetPatient.getLocation());
+                    // Not kept in this.targetPatient; the action is reused
+                    Patient targetPatient = list.get(0);
+                    Ambulance.this.targetPatient = targetPatient;
+                    Ambulance.this.headingLocation = targetPatient.getLocation();
                 }
             }
         }
@@ -264,7 +314,7 @@ public class Ambulance extends ABCPlusCS {
             // Pick up and start transporting
             if (Ambulance.this.targetPatient.getStatus() == Patient.Status.Pulledout) {
                 if (Ambulance.this.headingLocation.equals(Ambulance.this.location) && Ambulance.this.status == Status.EMPTY) {
-                    Ambulance.this.targetPatient.setStatus(Patient.Status.OnTransport);
+                    ((MCIResponseWorld) Ambulance.this.world).setPatientStatus(Ambulance.this.targetPatient, Patient.Status.OnTransport);
                     Ambulance.this.targetPatient.setLocation(Ambulance.this.location);
                     Ambulance.this.headingLocation = Ambulance.this.getBestHospitalLocation();
 
@@ -295,7 +345,7 @@ public class Ambulance extends ABCPlusCS {
             if (this.hospitalCapacities.get(hospitalInfo.getKey()) > 0)
                 list.add(hospitalInfo);
 
-        Collections.shuffle(list, this.world.random);
+        Collections.shuffle(list, this.getRandom());
         list.sort(new Comparator<Map.Entry<String, Location>>() {
 
             @Override
@@ -339,6 +389,10 @@ public class Ambulance extends ABCPlusCS {
             }
 
             Ambulance.this.lastDirection = this.direction;
+
+            // A patient on transport moves along with the ambulance
+            if (Ambulance.this.status == Status.OCCUPIED && Ambulance.this.targetPatient != null)
+                Ambulance.this.targetPatient.setLocation(Ambulance.this.location);
         }
 
         @Override
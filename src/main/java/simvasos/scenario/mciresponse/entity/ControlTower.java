@@ -1,34 +1,62 @@
 package simvasos.scenario.mciresponse.entity;
 
-import simvasos.modelparsing.modeling.ABCPlus.ABCItem;
 import simvasos.modelparsing.modeling.ABCPlus.ABCPlusCS;
 import simvasos.scenario.mciresponse.MCIResponseScenario;
 import simvasos.scenario.mciresponse.MCIResponseWorld;
+import simvasos.scenario.mciresponse.MessageKeys;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
+import simvasos.simulation.component.Action;
 import simvasos.simulation.component.Agent;
 import simvasos.simulation.component.Message;
 import simvasos.simulation.component.World;
+import simvasos.simulation.util.BooleanGrid;
+import simvasos.simulation.util.IntGrid;
 import simvasos.simulation.util.Location;
-import simvasos.simulation.util.Maptrix;
+import simvasos.simulation.util.TargetIndex;
 
 import java.util.*;
 
 public class ControlTower extends ABCPlusCS {
 
-    Maptrix<Integer> expectedPatientsMap = (Maptrix<Integer>) this.world.getResources().get("ExpectedPatientsMap");
-    Maptrix<Boolean> pulloutBeliefMap = new Maptrix<Boolean>(Boolean.TYPE, MCIResponseWorld.MAP_SIZE.getLeft(), MCIResponseWorld.MAP_SIZE.getRight());
+    IntGrid expectedPatientsMap = ((MCIResponseWorld) this.world).expectedPatientsMap;
+    final BooleanGrid pulloutBeliefMap = new BooleanGrid(((MCIResponseWorld) this.world).getMapX(), ((MCIResponseWorld) this.world).getMapY());
+    private final BooleanGrid sharedPulloutBeliefMap = new BooleanGrid(this.pulloutBeliefMap.getXSize(), this.pulloutBeliefMap.getYSize());
+    private final TargetIndex targetIndex = new TargetIndex(this.pulloutBeliefMap, this.expectedPatientsMap, 4); // Shared by all fire fighters
     ArrayList<FireFighter> fireFighters = new ArrayList<FireFighter>();
 
     public ControlTower(World world, String name) {
         super(world);
 
         this.name = name;
+        this.reset();
+    }
 
-        ArrayList<Agent> agents = this.world.getAgents();
-        for (Agent agent : agents)
-            if (agent instanceof FireFighter)
-                this.fireFighters.add((FireFighter) agent);
+    private ControlTower(World world, ControlTower controlTower) {
+        super(world, controlTower);
 
-        this.reset();
+        this.pulloutBeliefMap.copyFrom(controlTower.pulloutBeliefMap);
+        this.sharedPulloutBeliefMap.copyFrom(controlTower.sharedPulloutBeliefMap);
+    }
+
+    @Override
+    public Agent fork(World world) {
+        return new ControlTower(world, this);
+    }
+
+    @Override
+    protected void resolveFork(Agent agent) {
+        // Keep the (shuffled) order of the original fire fighters, mapped to their forked counterparts
+        HashMap<String, Agent> forkedAgents = new HashMap<String, Agent>();
+        for (Agent forkedAgent : this.world.getAgents())
+            forkedAgents.put(forkedAgent.getName(), forkedAgent);
+
+        for (FireFighter fireFighter : ((ControlTower) agent).fireFighters) {
+            Agent forkedAgent = forkedAgents.get(fireFighter.getName());
+            if (!(forkedAgent instanceof FireFighter))
+                throw new IllegalStateException("No fork of " + fireFighter.getName() + " for the fork of " + this.getName());
+            this.fireFighters.add((FireFighter) forkedAgent);
+        }
     }
 
     @Override
@@ -40,23 +68,23 @@ public class ControlTower extends ABCPlusCS {
     protected void consumeInformation() {
         for (Message message : this.incomingInformation) {
             // Pullout report from FireFighters
-            if (message.sender.startsWith("FireFighter") && message.purpose == Message.Purpose.Delivery && message.data.containsKey("PulloutLocation")) {
-                Location pulloutLocation = (Location) message.data.get("PulloutLocation");
+            if (message.sender.startsWith("FireFighter") && message.purpose == Message.Purpose.Delivery && message.has(MessageKeys.PULLOUT_LOCATION)) {
+                Location pulloutLocation = message.get(MessageKeys.PULLOUT_LOCATION);
                 this.pulloutBeliefMap.setValue(pulloutLocation, true);
 //                Maptrix<Boolean> othersBeliefMap = (Maptrix<Boolean>) message.data.get("PulloutBelief");
 //
 //                boolean localBelief = false;
-//                for (int x = 0; x < MCIResponseWorld.MAP_SIZE.getLeft(); x++)
-//                    for (int y = 0; y < MCIResponseWorld.MAP_SIZE.getRight(); y++) {
+//                for (int x = 0; x < this.pulloutBeliefMap.getXSize(); x++)
+//                    for (int y = 0; y < this.pulloutBeliefMap.getYSize(); y++) {
 //                        localBelief = this.pulloutBeliefMap.getValue(x, y);
 //                        localBelief = localBelief || othersBeliefMap.getValue(x, y);
 //                        this.pulloutBeliefMap.setValue(x, y, localBelief);
 //                    }
-            } else if (message.sender.startsWith("FireFighter") && message.purpose == Message.Purpose.Response && message.data.containsKey("Accepted")) {
-                boolean accepted = (boolean) message.data.get("Accepted");
+            } else if (message.sender.startsWith("FireFighter") && message.purpose == Message.Purpose.Response && message.has(MessageKeys.ACCEPTED)) {
+                boolean accepted = message.get(MessageKeys.ACCEPTED);
 
                 if (accepted) {
-                    Location markedLocation = (Location) message.data.get("HeadingLocation");
+                    Location markedLocation = message.get(MessageKeys.HEADING_LOCATION);
                     this.pulloutBeliefMap.setValue(markedLocation, true);
                 }
             }
@@ -66,65 +94,59 @@ public class ControlTower extends ABCPlusCS {
     @Override
     protected void generateActiveImmediateActions() {
         // Share pullout belief
-        switch ((MCIResponseScenario.SoSType) this.world.getResources().get("Type")) {
+        MCIResponseScenario.SoSType type = ((MCIResponseWorld) this.world).getSoSType();
+        switch (type) {
             case Acknowledged:
             case Collaborative:
-                Message beliefShare = new Message();
+                Message beliefShare = newMessage();
                 beliefShare.name = "Share Pullout belief";
                 beliefShare.sender = this.getName();
                 beliefShare.receiver = "FireFighter";
 //                beliefShare.location = this.location;
                 beliefShare.purpose = Message.Purpose.Delivery;
-                beliefShare.data.put("PulloutBelief", this.pulloutBeliefMap);
+                beliefShare.put(MessageKeys.PULLOUT_BELIEF, this.sharedPulloutBeliefMap);
 
-                this.immediateActionList.add(new ABCItem(new SendMessage(beliefShare), 5, 1));
+                this.shareBelief.sendMessage = newSendMessage(beliefShare);
+                this.immediateActionList.add(newItem(this.shareBelief, 5, 1));
         }
 
         // Direct
-        switch ((MCIResponseScenario.SoSType) this.world.getResources().get("Type")) {
+        switch (type) {
             case Directed:
             case Acknowledged:
-                Collections.shuffle(this.fireFighters, this.world.random);
-                int mapX = ((MCIResponseWorld) this.world).MAP_SIZE.getLeft();
-                int mapY = ((MCIResponseWorld) this.world).MAP_SIZE.getRight();
-
-                for (FireFighter fireFighter : this.fireFighters) {
-                    Location fLocation = (Location) fireFighter.getProperties().get("Location");
-
-                    PriorityQueue<Location> targetLocations = new PriorityQueue<Location>(mapX * mapY, new Comparator<Location>() {
-
-                        @Override
-                        public int compare(Location o1, Location o2) {
-                            int v1 = calculateMoveCost(fLocation, o1);
-                            int v2 = calculateMoveCost(fLocation, o2);
-
-                            return v1 - v2;
-                        }
-                    });
-
-                    for (int x = 0; x < mapX; x++)
-                        for (int y = 0; y < mapY; y++)
-                            if (!this.pulloutBeliefMap.getValue(x, y))
-                                targetLocations.offer(new Location(x, y));
-
-                    if (targetLocations.size() == 0)
-                        break;
-
-                    Message direction = new Message();
-                    direction.name = "Direct heading location";
-                    direction.sender = this.getName();
-                    direction.receiver = fireFighter.getName();
-                    if (this.world.getResources().get("Type") == MCIResponseScenario.SoSType.Directed)
-                        direction.purpose = Message.Purpose.Order;
-                    else if (this.world.getResources().get("Type") == MCIResponseScenario.SoSType.Acknowledged) {
-                        direction.purpose = Message.Purpose.ReqAction;
-                        direction.data.put("AdditionalBenefit", (mapX + mapY) / 4);
-                    }
-
-                    direction.data.put("HeadingLocation", targetLocations.poll());
-
-                    this.immediateActionList.add(new ABCItem(new SendMessage(direction), 0, 1));
-                }
+                dispatch(type);
+        }
+    }
+
+    void dispatch(MCIResponseScenario.SoSType type) {
+        // A heading location for every fire fighter in one pass, in a random order, all from the same index over
+        // the pullout belief; a fire fighter may turn it down, so locations are not reserved
+        Collections.shuffle(this.fireFighters, this.getRandom());
+        int mapX = this.pulloutBeliefMap.getXSize();
+        int mapY = this.pulloutBeliefMap.getYSize();
+
+        for (int i = 0; i < this.fireFighters.size(); i++) {
+            FireFighter fireFighter = this.fireFighters.get(i);
+            int cell = this.targetIndex.findBest(fireFighter.getLocation().getX(), fireFighter.getLocation().getY());
+
+            if (cell < 0)
+                break;
+
+            Message direction = newMessage();
+            direction.name = "Direct heading location";
+            direction.sender = this.getName();
+            direction.receiver = fireFighter.getName();
+            if (type == MCIResponseScenario.SoSType.Directed)
+                direction.purpose = Message.Purpose.Order;
+            else if (type == MCIResponseScenario.SoSType.Acknowledged) {
+                direction.purpose = Message.Purpose.ReqAction;
+                direction.put(MessageKeys.ADDITIONAL_BENEFIT, (mapX + mapY) / 4);
+            }
+
+            // A new location per directive; the fire fighter adopts it as its heading location
+            direction.put(MessageKeys.HEADING_LOCATION, new Location(this.pulloutBeliefMap.getX(cell), this.pulloutBeliefMap.getY(cell)));
+
+            this.immediateActionList.add(newItem(newSendMessage(direction), 0, 1));
         }
     }
 
@@ -150,10 +172,17 @@ public class ControlTower extends ABCPlusCS {
 
     @Override
     public void reset() {
-        this.pulloutBeliefMap.reset();
-        for (int x = 0; x < MCIResponseWorld.MAP_SIZE.getLeft(); x++)
-            for (int y = 0; y < MCIResponseWorld.MAP_SIZE.getRight(); y++)
-                this.pulloutBeliefMap.setValue(x, y, false);
+        super.reset();
+
+        // Dispatching shuffles this list, so restore the original order
+        this.fireFighters.clear();
+        ArrayList<Agent> agents = this.world.getAgents();
+        for (Agent agent : agents)
+            if (agent instanceof FireFighter)
+                this.fireFighters.add((FireFighter) agent);
+
+        this.pulloutBeliefMap.clear();
+        this.sharedPulloutBeliefMap.clear();
     }
 
     @Override
@@ -166,10 +195,46 @@ public class ControlTower extends ABCPlusCS {
         return "C";
     }
 
+    private int pulloutBeliefMapId;
+
+    @Override
+    public void registerProperties(TraceSchema schema) {
+        this.pulloutBeliefMapId = schema.register(this, "PulloutBeliefMap", TraceSchema.Type.OBJECT);
+    }
+
+    @Override
+    public void recordProperties(Trace trace) {
+        // A copy, as the grid changes from tick to tick; copying a bitset grid copies its words
+        trace.setObject(this.pulloutBeliefMapId, new BooleanGrid(this.pulloutBeliefMap));
+    }
+
     @Override
     public HashMap<String, Object> getProperties() {
         HashMap<String, Object> properties = new HashMap<String, Object>();
-        properties.put("PulloutBeliefMap", this.pulloutBeliefMap);
+        properties.put("PulloutBeliefMap", new BooleanGrid(this.pulloutBeliefMap));
         return properties;
     }
+
+    private final ShareBelief shareBelief = new ShareBelief();
+
+    private class ShareBelief extends Action {
+        private Action sendMessage;
+
+        public ShareBelief() {
+            super(0);
+        }
+
+        @Override
+        public void execute() {
+            // Fire fighters merge the belief as of sending, while the control tower keeps updating its own as it
+            // decides (possibly at the same time, see World.setParallelism())
+            ControlTower.this.sharedPulloutBeliefMap.copyFrom(ControlTower.this.pulloutBeliefMap);
+            this.sendMessage.execute();
+        }
+
+        @Override
+        public String getName() {
+            return ControlTower.this.getName() + ": Send messages";
+        }
+    }
 }
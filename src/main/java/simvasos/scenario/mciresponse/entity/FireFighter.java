@@ -4,21 +4,31 @@ import simvasos.modelparsing.modeling.ABCPlus.ABCItem;
 import simvasos.modelparsing.modeling.ABCPlus.ABCPlusCS;
 import simvasos.scenario.mciresponse.MCIResponseScenario.SoSType;
 import simvasos.scenario.mciresponse.MCIResponseWorld;
+import simvasos.scenario.mciresponse.MessageKeys;
 import simvasos.scenario.mciresponse.Patient;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
 import simvasos.simulation.component.Action;
+import simvasos.simulation.component.Agent;
 import simvasos.simulation.component.Message;
 import simvasos.simulation.component.World;
+import simvasos.simulation.util.BooleanGrid;
+import simvasos.simulation.util.IntGrid;
 import simvasos.simulation.util.Location;
-import simvasos.simulation.util.Maptrix;
+import simvasos.simulation.util.TargetIndex;
 
 import java.util.*;
 
 public class FireFighter extends ABCPlusCS {
 
-    Maptrix<Integer> expectedPatientsMap = (Maptrix<Integer>) this.world.getResources().get("ExpectedPatientsMap");
-    Maptrix<Boolean> beliefMap = new Maptrix<Boolean>(Boolean.TYPE, MCIResponseWorld.MAP_SIZE.getLeft(), MCIResponseWorld.MAP_SIZE.getRight());
+    private final int mapX = ((MCIResponseWorld) this.world).getMapX();
+    private final int mapY = ((MCIResponseWorld) this.world).getMapY();
 
-    private Location location = new Location(MCIResponseWorld.MAP_SIZE.getLeft() / 2, MCIResponseWorld.MAP_SIZE.getRight() / 2);;
+    IntGrid expectedPatientsMap = ((MCIResponseWorld) this.world).expectedPatientsMap;
+    final BooleanGrid beliefMap = new BooleanGrid(this.mapX, this.mapY);
+    private final TargetIndex targetIndex = new TargetIndex(this.beliefMap, this.expectedPatientsMap, 4); // See calculateMoveCost(Location, Location)
+
+    private Location location = new Location(this.mapX / 2, this.mapY / 2);
     private Location headingLocation = null;
     private int headingBenefit = 0;
 
@@ -31,6 +41,9 @@ public class FireFighter extends ABCPlusCS {
 
     private Patient pulledoutPatient = null;
 
+    // Indexed by Direction
+    private final Move[] moves = {null, new Move(Direction.LEFT), new Move(Direction.RIGHT), new Move(Direction.UP), new Move(Direction.DOWN)};
+
     public FireFighter(World world, String name) {
         super(world);
 
@@ -38,6 +51,27 @@ public class FireFighter extends ABCPlusCS {
         this.reset();
     }
 
+    private FireFighter(World world, FireFighter fireFighter) {
+        super(world, fireFighter);
+
+        this.beliefMap.copyFrom(fireFighter.beliefMap);
+
+        this.location.setLocation(fireFighter.location);
+        this.headingLocation = fireFighter.headingLocation == null ? null : new Location(fireFighter.headingLocation);
+        this.headingBenefit = fireFighter.headingBenefit;
+
+        this.lastDirection = fireFighter.lastDirection;
+        this.idleTime = fireFighter.idleTime;
+        this.status = fireFighter.status;
+
+        this.pulledoutPatient = ((MCIResponseWorld) world).getPatient(fireFighter.pulledoutPatient);
+    }
+
+    @Override
+    public Agent fork(World world) {
+        return new FireFighter(world, this);
+    }
+
     @Override
     protected void observeEnvironment() {
         // FireFighter observe current location and update already pulled-out patients
@@ -47,19 +81,10 @@ public class FireFighter extends ABCPlusCS {
     protected void consumeInformation() {
         for (Message message : this.incomingInformation) {
             // PullOut belief share from FireFighters
-            if (message.sender.startsWith("ControlTower") && message.purpose == Message.Purpose.Delivery && message.data.containsKey("PulloutBelief")) {
-                Maptrix<Boolean> othersBeliefMap = (Maptrix<Boolean>) message.data.get("PulloutBelief");
-
-                boolean localBelief;
-                for (int x = 0; x < MCIResponseWorld.MAP_SIZE.getLeft(); x++)
-                    for (int y = 0; y < MCIResponseWorld.MAP_SIZE.getRight(); y++) {
-                        Location location = new Location(x, y);
-                        localBelief = this.beliefMap.getValue(location);
-                        localBelief = localBelief || othersBeliefMap.getValue(location);
-                        this.beliefMap.setValue(location, localBelief);
-                    }
+            if (message.sender.startsWith("ControlTower") && message.purpose == Message.Purpose.Delivery && message.has(MessageKeys.PULLOUT_BELIEF)) {
+                this.beliefMap.or(message.get(MessageKeys.PULLOUT_BELIEF));
 
-                switch ((SoSType) this.world.getResources().get("Type")) {
+                switch (((MCIResponseWorld) this.world).getSoSType()) {
                     case Collaborative:
                     case Virtual:
                         if (this.headingLocation != null)
@@ -73,24 +98,24 @@ public class FireFighter extends ABCPlusCS {
     @Override
     protected void generateActiveImmediateActions() {
         // Do pullout patients at this location
-        this.immediateActionList.add(new ABCItem(this.pulloutPatient, 10, 1));
+        this.immediateActionList.add(newItem(this.pulloutPatient, 10, 1));
 
-        if ((SoSType) this.world.getResources().get("Type") != SoSType.Virtual) {
+        if (((MCIResponseWorld) this.world).getSoSType() != SoSType.Virtual) {
             // Report pullout belief to others
-            Message beliefShare = new Message();
+            Message beliefShare = newMessage();
             beliefShare.name = "Report Pullout belief";
             beliefShare.sender = this.getName();
             beliefShare.receiver = "ControlTower";
             beliefShare.purpose = Message.Purpose.Delivery;
-            beliefShare.data.put("PulloutLocation", this.location);
+            beliefShare.put(MessageKeys.PULLOUT_LOCATION, this.location);
 
-            this.immediateActionList.add(new ABCItem(new SendMessage(beliefShare), 9, 1));
+            this.immediateActionList.add(newItem(newSendMessage(beliefShare), 9, 1));
         }
 
         // Set heading location to incomplete area
-        if ((SoSType) this.world.getResources().get("Type") != SoSType.Directed) {
+        if (((MCIResponseWorld) this.world).getSoSType() != SoSType.Directed) {
             if (this.idleTime >= 4)
-                this.immediateActionList.add(new ABCItem(this.setHeadingLocation, 5, 0));
+                this.immediateActionList.add(newItem(this.setHeadingLocation, 5, 0));
         }
     }
 
@@ -100,45 +125,45 @@ public class FireFighter extends ABCPlusCS {
             // N-Directed Moves
             if (message.sender.equals("ControlTower") && message.purpose == Message.Purpose.Order) {
                 boolean accepted = false;
-                Location newLocation = (Location) message.data.get("HeadingLocation");
+                Location newLocation = message.get(MessageKeys.HEADING_LOCATION);
 
                 if (this.headingLocation == null && this.status == Status.Complete) {
                     this.headingLocation = newLocation;
                     accepted = true;
                 }
 
-                Message beliefShare = new Message();
+                Message beliefShare = newMessage();
                 beliefShare.name = "Direction acception";
                 beliefShare.sender = this.getName();
                 beliefShare.receiver = message.sender;
                 beliefShare.purpose = Message.Purpose.Response;
-                beliefShare.data.put("Accepted", accepted);
-                beliefShare.data.put("HeadingLocation", newLocation);
+                beliefShare.put(MessageKeys.ACCEPTED, accepted);
+                beliefShare.put(MessageKeys.HEADING_LOCATION, newLocation);
 
-                this.immediateActionList.add(new ABCItem(new SendMessage(beliefShare), 0, 0));
+                this.immediateActionList.add(newItem(newSendMessage(beliefShare), 0, 0));
 
             // N-Acked Moves
             } else if (message.sender.equals("ControlTower") && message.purpose == Message.Purpose.ReqAction) {
                 boolean accepted = false;
-                Location newLocation = (Location) message.data.get("HeadingLocation");
+                Location newLocation = message.get(MessageKeys.HEADING_LOCATION);
 
                 if (this.headingLocation == null && this.status == Status.Complete) {
                     if (this.idleTime >= 4) {
                         this.headingLocation = newLocation;
-                        this.headingBenefit = (Integer) message.data.get("AdditionalBenefit");
+                        this.headingBenefit = message.get(MessageKeys.ADDITIONAL_BENEFIT);
                         accepted = true;
                     }
                 }
 
-                Message beliefShare = new Message();
+                Message beliefShare = newMessage();
                 beliefShare.name = "Direction acception";
                 beliefShare.sender = this.getName();
                 beliefShare.receiver = message.sender;
                 beliefShare.purpose = Message.Purpose.Response;
-                beliefShare.data.put("Accepted", accepted);
-                beliefShare.data.put("HeadingLocation", newLocation);
+                beliefShare.put(MessageKeys.ACCEPTED, accepted);
+                beliefShare.put(MessageKeys.HEADING_LOCATION, newLocation);
 
-                this.immediateActionList.add(new ABCItem(new SendMessage(beliefShare), 0, 0));
+                this.immediateActionList.add(newItem(newSendMessage(beliefShare), 0, 0));
             }
         }
     }
@@ -147,7 +172,7 @@ public class FireFighter extends ABCPlusCS {
     protected void generateNormalActions() {
         // N-Autonomous Moves
         if (this.status == Status.Complete) {
-            switch ((SoSType) this.world.getResources().get("Type")) {
+            switch (((MCIResponseWorld) this.world).getSoSType()) {
                 case Directed:
                     addFourDirectionMoves(this.directedNormalActionList, 0, true);
                     break;
@@ -162,13 +187,13 @@ public class FireFighter extends ABCPlusCS {
 
     public void addFourDirectionMoves(ArrayList<ABCItem> actionList, int additionalBenefit, boolean directMove) {
         if (this.location.getX() > 0)
-            actionList.add(new ABCItem(new Move(Direction.LEFT), additionalBenefit, calculateMoveCost(Direction.LEFT, directMove)));
-        if (this.location.getX() < MCIResponseWorld.MAP_SIZE.getLeft() - 1)
-            actionList.add(new ABCItem(new Move(Direction.RIGHT), additionalBenefit, calculateMoveCost(Direction.RIGHT, directMove)));
+            actionList.add(newItem(this.moves[Direction.LEFT.ordinal()], additionalBenefit, calculateMoveCost(Direction.LEFT, directMove)));
+        if (this.location.getX() < this.mapX - 1)
+            actionList.add(newItem(this.moves[Direction.RIGHT.ordinal()], additionalBenefit, calculateMoveCost(Direction.RIGHT, directMove)));
         if (this.location.getY() > 0)
-            actionList.add(new ABCItem(new Move(Direction.UP), additionalBenefit, calculateMoveCost(Direction.UP, directMove)));
-        if (this.location.getY() < MCIResponseWorld.MAP_SIZE.getRight() - 1)
-            actionList.add(new ABCItem(new Move(Direction.DOWN), additionalBenefit, calculateMoveCost(Direction.DOWN, directMove)));
+            actionList.add(newItem(this.moves[Direction.UP.ordinal()], additionalBenefit, calculateMoveCost(Direction.UP, directMove)));
+        if (this.location.getY() < this.mapY - 1)
+            actionList.add(newItem(this.moves[Direction.DOWN.ordinal()], additionalBenefit, calculateMoveCost(Direction.DOWN, directMove)));
     }
 
     public int calculateMoveCost(Direction direction, boolean directMove) {
@@ -183,47 +208,49 @@ public class FireFighter extends ABCPlusCS {
     }
 
     public int calculateMoveCost(int deltaX, int deltaY, boolean directMove) {
-        Location nextLocation = this.location.add(deltaX, deltaY);
-        return calculateMoveCost(nextLocation, directMove);
-    }
-
-    public int calculateMoveCost(Location nextLocation, boolean directMove) {
+        int nextX = this.location.getX() + deltaX;
+        int nextY = this.location.getY() + deltaY;
         int totalCost = 0;
 
         // Directed or Acknowledged
         if (directMove && this.headingLocation != null) {
             // Headindg cost
-            totalCost += nextLocation.distanceTo(this.headingLocation);
+            totalCost += this.headingLocation.distanceTo(nextX, nextY);
 
         // Voluntary heading location
         } else if (this.headingLocation != null) {
             // Uncertainty
-            totalCost += this.world.random.nextInt(8);
+            totalCost += this.getRandom().nextInt(8);
 
             // Headindg cost
-            totalCost += nextLocation.distanceTo(this.headingLocation);
+            totalCost += this.headingLocation.distanceTo(nextX, nextY);
         } else {
             // Uncertainty
-            totalCost += this.world.random.nextInt(8);
+            totalCost += this.getRandom().nextInt(8);
 
             // Belief cost
-            totalCost += this.beliefMap.getValue(nextLocation.getX(), nextLocation.getY()) ? 4 : 0;
-            totalCost -= this.expectedPatientsMap.getValue(nextLocation.getX(), nextLocation.getY()) * 4;
+            totalCost += this.beliefMap.getValue(nextX, nextY) ? 4 : 0;
+            totalCost -= this.expectedPatientsMap.getValue(nextX, nextY) * 4;
         }
 
         return totalCost;
     }
 
+    public int calculateMoveCost(Location nextLocation, boolean directMove) {
+        return calculateMoveCost(nextLocation.getX() - this.location.getX(), nextLocation.getY() - this.location.getY(), directMove);
+    }
+
     @Override
     public void reset() {
-        this.beliefMap.reset();
-        for (int x = 0; x < MCIResponseWorld.MAP_SIZE.getLeft(); x++)
-            for (int y = 0; y < MCIResponseWorld.MAP_SIZE.getRight(); y++)
-                this.beliefMap.setValue(x, y, false);
+        super.reset();
+
+        this.beliefMap.clear();
 
         this.status = Status.Pullout;
         this.idleTime = 0;
         this.location.setLocation(0,0);
+        this.headingLocation = null;
+        this.headingBenefit = 0;
 
         this.lastDirection = Direction.NONE;
         this.pulledoutPatient = null;
@@ -239,6 +266,23 @@ public class FireFighter extends ABCPlusCS {
         return this.name.replace("FireFighter", "F");
     }
 
+    private int locationId;
+
+    @Override
+    public void registerProperties(TraceSchema schema) {
+        this.locationId = schema.register(this, "Location", TraceSchema.Type.LOCATION);
+    }
+
+    @Override
+    public void recordProperties(Trace trace) {
+        trace.setLocation(this.locationId, this.location);
+    }
+
+    @Override
+    public Location getLocation() {
+        return this.location;
+    }
+
     @Override
     public HashMap<String, Object> getProperties() {
         HashMap<String, Object> properties = new HashMap<String, Object>();
@@ -250,16 +294,17 @@ public class FireFighter extends ABCPlusCS {
 
         @Override
         public void execute() {
-            ArrayList<Patient> trappedPatients = ((MCIResponseWorld) FireFighter.this.world).getTrappedPatients(FireFighter.this.location);
+            MCIResponseWorld world = (MCIResponseWorld) FireFighter.this.world;
+            int nTrapped = world.getNumberOfTrappedPatient(FireFighter.this.location);
 
-            if (trappedPatients.size() > 1)
+            if (nTrapped > 1)
                 FireFighter.this.status = Status.Pullout;
             else
                 FireFighter.this.status = Status.Complete;
 
-            if (trappedPatients.size() > 0) {
-                FireFighter.this.pulledoutPatient = trappedPatients.get(0);
-                pulledoutPatient.setStatus(Patient.Status.Pulledout);
+            if (nTrapped > 0) {
+                FireFighter.this.pulledoutPatient = world.getTrappedPatient(FireFighter.this.location);
+                world.setPatientStatus(FireFighter.this.pulledoutPatient, Patient.Status.Pulledout);
                 FireFighter.this.idleTime = 0;
 //                System.out.println(FireFighter.this.getName() + ": idle time reset");
             } else {
@@ -281,29 +326,12 @@ public class FireFighter extends ABCPlusCS {
         @Override
         public void execute() {
             if (FireFighter.this.headingLocation == null) {
-                int mapX = ((MCIResponseWorld) FireFighter.this.world).MAP_SIZE.getLeft();
-                int mapY = ((MCIResponseWorld) FireFighter.this.world).MAP_SIZE.getRight();
-
-                PriorityQueue<Location> targetLocations = new PriorityQueue<Location>(mapX * mapY, new Comparator<Location>() {
-
-                    @Override
-                    public int compare(Location o1, Location o2) {
-                        int v1 = calculateMoveCost(FireFighter.this.location, o1);
-                        int v2 = calculateMoveCost(FireFighter.this.location, o2);
-
-                        return v1 - v2;
-                    }
-                });
+                Location targetLocation = findHeadingLocation();
 
-                for (int x = 0; x < mapX; x++)
-                    for (int y = 0; y < mapY; y++)
-                        if (!FireFighter.this.beliefMap.getValue(x, y))
-                            targetLocations.offer(new Location(x, y));
-
-                if (targetLocations.size() == 0)
+                if (targetLocation == null)
                     return;
 
-                FireFighter.this.headingLocation = targetLocations.poll();
+                FireFighter.this.headingLocation = targetLocation;
             }
         }
 
@@ -313,12 +341,38 @@ public class FireFighter extends ABCPlusCS {
         }
     };
 
+    public Location findHeadingLocation() {
+        // The cheapest location which is not pulled out yet, null if every location is
+        int cell = this.targetIndex.findBest(this.location.getX(), this.location.getY());
+        return cell < 0 ? null : new Location(this.beliefMap.getX(cell), this.beliefMap.getY(cell));
+    }
+
+    public static Location findHeadingLocation(Location currentLocation, BooleanGrid pulloutBeliefMap, IntGrid expectedPatientsMap) {
+        // Same by a full scan; ties go to the first location in x-major order, as they did with a priority queue
+        // filled in that order
+        int bestCell = -1;
+        int bestCost = Integer.MAX_VALUE;
+        for (int cell = pulloutBeliefMap.nextClearCell(0); cell >= 0; cell = pulloutBeliefMap.nextClearCell(cell + 1)) {
+            int cost = calculateMoveCost(currentLocation, pulloutBeliefMap.getX(cell), pulloutBeliefMap.getY(cell), expectedPatientsMap);
+            if (cost < bestCost) {
+                bestCost = cost;
+                bestCell = cell;
+            }
+        }
+
+        return bestCell < 0 ? null : new Location(pulloutBeliefMap.getX(bestCell), pulloutBeliefMap.getY(bestCell));
+    }
+
     public int calculateMoveCost(Location currentLocation, Location headingLocation) {
+        return calculateMoveCost(currentLocation, headingLocation.getX(), headingLocation.getY(), this.expectedPatientsMap);
+    }
+
+    private static int calculateMoveCost(Location currentLocation, int headingX, int headingY, IntGrid expectedPatientsMap) {
         int totalCost = 0;
         // Distance cost
-        totalCost += currentLocation.distanceTo(headingLocation);
+        totalCost += currentLocation.distanceTo(headingX, headingY);
         // Belief cost
-        totalCost -= this.expectedPatientsMap.getValue(headingLocation.getX(), headingLocation.getY()) * 4;
+        totalCost -= expectedPatientsMap.getValue(headingX, headingY) * 4;
 
         return totalCost;
     }
@@ -1,13 +1,18 @@
 package simvasos.scenario.mciresponse.entity;
 
-import simvasos.modelparsing.modeling.ABCPlus.ABCItem;
 import simvasos.modelparsing.modeling.ABCPlus.ABCPlusCS;
+import simvasos.scenario.mciresponse.MCIResponseWorld;
+import simvasos.scenario.mciresponse.MessageKeys;
 import simvasos.scenario.mciresponse.Patient;
-import simvasos.scenario.mciresponse.MCIResponseScenario;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
+import simvasos.simulation.component.Action;
+import simvasos.simulation.component.Agent;
 import simvasos.simulation.component.Message;
 import simvasos.simulation.component.World;
 import simvasos.simulation.util.Location;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 
 public class Hospital extends ABCPlusCS {
@@ -17,6 +22,10 @@ public class Hospital extends ABCPlusCS {
     private final int maxCapacity;
     private int capacity;
 
+    // Admissions live until the end of the tick, as the messages they send (see ABCPlusCS)
+    private final ArrayList<Hospitalize> hospitalizePool = new ArrayList<Hospitalize>();
+    private int nHospitalize = 0;
+
     public Hospital(World world, String name, Location location, int maxCapacity) {
         super(world);
 
@@ -27,6 +36,19 @@ public class Hospital extends ABCPlusCS {
         this.reset();
     }
 
+    private Hospital(World world, Hospital hospital) {
+        super(world, hospital);
+
+        this.location = new Location(hospital.location);
+        this.maxCapacity = hospital.maxCapacity;
+        this.capacity = hospital.capacity;
+    }
+
+    @Override
+    public Agent fork(World world) {
+        return new Hospital(world, this);
+    }
+
     @Override
     protected void observeEnvironment() {
 
@@ -46,41 +68,41 @@ public class Hospital extends ABCPlusCS {
     protected void generatePassiveImmediateActions() {
         for (Message message : this.incomingRequests) {
             // I-ReportCapacity
-            if (message.sender.startsWith("Ambulance") && message.purpose == Message.Purpose.ReqInfo && message.data.containsKey("Capacity")) {
-                switch ((MCIResponseScenario.SoSType) this.world.getResources().get("Type")) {
+            if (message.sender.startsWith("Ambulance") && message.purpose == Message.Purpose.ReqInfo && message.has(MessageKeys.CAPACITY)) {
+                switch (((MCIResponseWorld) this.world).getSoSType()) {
                     default:
-                        Message locationReport = new Message();
+                        Message locationReport = newMessage();
                         locationReport.name = "Respond hospital capacity";
                         locationReport.sender = this.getName();
                         locationReport.receiver = message.sender;
                         locationReport.purpose = Message.Purpose.Response;
-                        locationReport.data.put("Capacity", this.capacity);
+                        locationReport.put(MessageKeys.CAPACITY, this.capacity);
 
-                        this.immediateActionList.add(new ABCItem(new SendMessage(locationReport), 0, 1));
+                        this.immediateActionList.add(newItem(newSendMessage(locationReport), 0, 1));
                         break;
                 }
 
             // Request Hospitalizing
-            } else if (message.sender.startsWith("Ambulance") && message.purpose == Message.Purpose.ReqAction && message.data.containsKey("Patient")) {
-                switch ((MCIResponseScenario.SoSType) this.world.getResources().get("Type")) {
+            } else if (message.sender.startsWith("Ambulance") && message.purpose == Message.Purpose.ReqAction && message.has(MessageKeys.PATIENT)) {
+                switch (((MCIResponseWorld) this.world).getSoSType()) {
                     default:
                         boolean isHospitalized = false;
                         if (this.capacity > 0) {
                             this.capacity--;
-                            Patient patient = (Patient) message.data.get("Patient");
-                            patient.setStatus(Patient.Status.Hospitalized);
-                            patient.setLocation(this.location);
                             isHospitalized = true;
                         }
 
-                        Message hospitalizePatient = new Message();
+                        Message hospitalizePatient = newMessage();
                         hospitalizePatient.name = "Respond hospitalizing the patient";
                         hospitalizePatient.sender = this.getName();
                         hospitalizePatient.receiver = message.sender;
                         hospitalizePatient.purpose = Message.Purpose.Response;
-                        hospitalizePatient.data.put("Hospitalized", isHospitalized);
+                        hospitalizePatient.put(MessageKeys.HOSPITALIZED, isHospitalized);
 
-                        this.immediateActionList.add(new ABCItem(new SendMessage(hospitalizePatient), 3, 1));
+                        Action respond = newSendMessage(hospitalizePatient);
+                        if (isHospitalized)
+                            respond = newHospitalize(message.get(MessageKeys.PATIENT), respond);
+                        this.immediateActionList.add(newItem(respond, 3, 1));
                 }
             }
         }
@@ -91,9 +113,26 @@ public class Hospital extends ABCPlusCS {
 
     }
 
+    private Action newHospitalize(Patient patient, Action respond) {
+        if (this.nHospitalize == this.hospitalizePool.size())
+            this.hospitalizePool.add(new Hospitalize());
+
+        return this.hospitalizePool.get(this.nHospitalize++).set(patient, respond);
+    }
+
+    @Override
+    public void progress() {
+        super.progress();
+
+        this.nHospitalize = 0;
+    }
+
     @Override
     public void reset() {
+        super.reset();
+
         this.capacity = this.maxCapacity;
+        this.nHospitalize = 0;
     }
 
     @Override
@@ -106,6 +145,25 @@ public class Hospital extends ABCPlusCS {
         return this.name.replace("Hospital", "H");
     }
 
+    private int capacityId, locationId;
+
+    @Override
+    public void registerProperties(TraceSchema schema) {
+        this.capacityId = schema.register(this, "Capacity", TraceSchema.Type.INT);
+        this.locationId = schema.register(this, "Location", TraceSchema.Type.LOCATION);
+    }
+
+    @Override
+    public void recordProperties(Trace trace) {
+        trace.setInt(this.capacityId, this.capacity);
+        trace.setLocation(this.locationId, this.location);
+    }
+
+    @Override
+    public Location getLocation() {
+        return this.location;
+    }
+
     @Override
     public HashMap<String, Object> getProperties() {
         HashMap<String, Object> properties = new HashMap<String, Object>();
@@ -113,4 +171,33 @@ public class Hospital extends ABCPlusCS {
         properties.put("Location", new Location(this.location));
         return properties;
     }
+
+    private class Hospitalize extends Action {
+        private Patient patient;
+        private Action respond;
+
+        public Hospitalize() {
+            super(0);
+        }
+
+        public Hospitalize set(Patient patient, Action respond) {
+            this.patient = patient;
+            this.respond = respond;
+            return this;
+        }
+
+        @Override
+        public void execute() {
+            // The patient is admitted when the response is sent, not while deciding, so that the world only changes
+            // as actions are applied (see World.setParallelism())
+            ((MCIResponseWorld) Hospital.this.world).setPatientStatus(this.patient, Patient.Status.Hospitalized);
+            this.patient.setLocation(Hospital.this.location);
+            this.respond.execute();
+        }
+
+        @Override
+        public String getName() {
+            return Hospital.this.getName() + ": Hospitalize a patient";
+        }
+    }
 }
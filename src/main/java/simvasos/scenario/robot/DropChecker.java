@@ -1,33 +1,33 @@
 package simvasos.scenario.robot;
 
 import simvasos.propcheck.pattern.ExistenceChecker;
-import simvasos.simulation.analysis.PropertyValue;
-import simvasos.simulation.analysis.Snapshot;
-
-import java.util.ArrayList;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
 
 /**
  * Created by mgjin on 2017-06-23.
  */
 public class DropChecker extends ExistenceChecker {
 
-    @Override
-    public boolean evaluate(Snapshot snapshot) {
-        // Override me to evaluate whatever you want
-        ArrayList<PropertyValue> properties = snapshot.getProperties();
+    private int[] tokenIds = new int[0];
 
-        // Token
-        // True: Agent has a token
-        // False: Agent doesn't have a token
-        boolean res = true;
-        for (PropertyValue pv : properties) {
-            if (pv.isAgent && pv.propertyName.equals("token"))
-                res = res && ((boolean) pv.value);
-        }
+    @Override
+    public void bind(TraceSchema schema) {
+        this.tokenIds = schema.getAgentPropertyIds("token");
+    }
 
-        // Return
+    @Override
+    public boolean evaluate(Trace trace, int tick) {
         // True: At least one agent has no token
-        // False: All agents have a token
-        return !res;
+        for (int tokenId : this.tokenIds)
+            if (!trace.getBoolean(tokenId, tick))
+                return true;
+
+        return false;
+    }
+
+    @Override
+    public boolean needsEveryTick() {
+        return false;
     }
 }
@@ -1,5 +1,7 @@
 package simvasos.scenario.robot;
 
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
 import simvasos.simulation.component.Action;
 import simvasos.simulation.component.Agent;
 import simvasos.simulation.component.World;
@@ -26,6 +28,22 @@ public class Robot extends Agent{
         this.reset();
     }
 
+    private Robot(World world, Robot robot) {
+        super(world);
+
+        this.name = robot.name;
+        this.reset();
+
+        this.xpos = robot.xpos;
+        this.token = robot.token;
+        this.immediateStep = robot.immediateStep;
+    }
+
+    @Override
+    public Agent fork(World world) {
+        return new Robot(world, this);
+    }
+
     @Override
     public Action step() {
         Action next = this.move;
@@ -46,7 +64,7 @@ public class Robot extends Agent{
                 };
                 this.immediateStep = false;
             } else if (xpos > 10) { // Immediate action 2
-                int drop = this.world.random.nextInt(100);
+                int drop = this.getRandom().nextInt(100);
                 if (drop == 0) {
                     next = new Action(0) {
 
@@ -101,6 +119,20 @@ public class Robot extends Agent{
         return "R";
     }
 
+    private int xposId, tokenId;
+
+    @Override
+    public void registerProperties(TraceSchema schema) {
+        this.xposId = schema.register(this, "xpos", TraceSchema.Type.INT);
+        this.tokenId = schema.register(this, "token", TraceSchema.Type.BOOLEAN);
+    }
+
+    @Override
+    public void recordProperties(Trace trace) {
+        trace.setInt(this.xposId, this.xpos);
+        trace.setBoolean(this.tokenId, this.token);
+    }
+
     @Override
     public HashMap<String, Object> getProperties() {
         LinkedHashMap<String, Object> agentProperties = new LinkedHashMap<String, Object>();
@@ -14,6 +14,15 @@ public class RobotWorld extends World {
         super(1);
     }
 
+    private RobotWorld(RobotWorld world, long seed) {
+        super(world, seed);
+    }
+
+    @Override
+    protected World copy(long seed) {
+        return new RobotWorld(this, seed);
+    }
+
     @Override
     public HashMap<String, Object> getResources() {
         return null;
@@ -23,4 +32,9 @@ public class RobotWorld extends World {
     public ArrayList<Action> generateExogenousActions() {
         return new ArrayList<Action>();
     }
+
+    @Override
+    public int nextExogenousEventTime(int time) {
+        return Integer.MAX_VALUE; // Nothing happens in the world but the robots
+    }
 }
@@ -0,0 +1,173 @@
+package simvasos.simulation;
+
+import simvasos.propcheck.PropertyChecker;
+import simvasos.propcheck.PropertyChecker.Verdict;
+import simvasos.simulation.analysis.Snapshot;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.component.Action;
+import simvasos.simulation.component.Agent;
+import simvasos.simulation.component.World;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Discrete-event counterpart of Simulator.
+ *
+ * An agent is stepped again only when the normal action it selected is completed (its duration later), and the world
+ * only when it has exogenous actions, so the clock jumps from one event to the next. While every agent is due on
+ * every tick (all actions last one tick), a run is identical to the one of Simulator, random draws included.
+ *
+ * Only the agents are skipped between two events: execute(World, int) and record(World, int) still progress the
+ * world and take a snapshot at every tick, as their logs have one per tick, and progressing a world may cost per
+ * agent (e.g., MCIResponseWorld recycles the messages of every agent). Only online checking with a checker that does
+ * not need every tick (see PropertyChecker.needsEveryTick()) runs in time proportional to the number of events.
+ */
+public class EventSimulator {
+    public static ArrayList<Snapshot> execute(World world, int endOfTime) {
+        ArrayList<Snapshot> simulationLog = new ArrayList<Snapshot>();
+
+        Agenda agenda = new Agenda(world);
+        simulationLog.add(world.getCurrentSnapshot()); // Initial snapshot
+
+        while (world.getTime() < endOfTime && !Thread.currentThread().isInterrupted()) {
+            int nextEventTime = agenda.fire(endOfTime);
+
+            // A snapshot per tick, as in Simulator; only the time changes until the next event
+            do {
+                world.progress(1);
+                simulationLog.add(world.getCurrentSnapshot());
+            } while (world.getTime() < nextEventTime);
+        }
+
+        return simulationLog;
+    }
+
+    public static Trace record(World world, int endOfTime) {
+        Trace trace = new Trace(world.getTraceSchema());
+
+        Agenda agenda = new Agenda(world);
+        trace.newTick();
+        world.recordProperties(trace); // Initial snapshot
+
+        while (world.getTime() < endOfTime && !Thread.currentThread().isInterrupted()) {
+            int nextEventTime = agenda.fire(endOfTime);
+
+            do {
+                world.progress(1);
+                trace.newTick();
+                world.recordProperties(trace);
+            } while (world.getTime() < nextEventTime);
+        }
+
+        return trace;
+    }
+
+    public static boolean execute(World world, int endOfTime, PropertyChecker checker) {
+        // Online checking; the ticks between two events are skipped unless the checker looks at the time
+        Trace trace = new Trace(world.getTraceSchema(), 1);
+        checker.bind(trace.getSchema());
+        boolean everyTick = checker.needsEveryTick();
+
+        Agenda agenda = new Agenda(world);
+        checker.begin();
+        int tick = trace.newTick();
+        world.recordProperties(trace);
+        Verdict verdict = checker.check(trace, tick); // Initial snapshot
+
+        while (world.getTime() < endOfTime && verdict == Verdict.UNDECIDED && !Thread.currentThread().isInterrupted()) {
+            int nextEventTime = agenda.fire(endOfTime);
+
+            do {
+                world.progress(everyTick ? 1 : nextEventTime - world.getTime());
+                tick = trace.newTick();
+                world.recordProperties(trace);
+                verdict = checker.check(trace, tick);
+            } while (world.getTime() < nextEventTime && verdict == Verdict.UNDECIDED);
+        }
+
+        if (verdict == Verdict.UNDECIDED)
+            return checker.conclude();
+        else
+            return verdict == Verdict.SATISFIED;
+    }
+
+    private static class Agenda {
+        private final World world;
+        private final ArrayList<Agent> agents;
+
+        // Wake-up time in the high half, agent index in the low half, so that agents due at the same time
+        // are polled in the order of the world, as Simulator steps them
+        private final PriorityQueue<Long> wakeUps = new PriorityQueue<Long>();
+
+        private final ArrayList<Integer> dueAgents = new ArrayList<Integer>();
+        private final ArrayList<Action> actions = new ArrayList<Action>();
+        private final ArrayList<Action> immediateActions = new ArrayList<Action>();
+        private final Set<Action> seen = Collections.newSetFromMap(new IdentityHashMap<Action, Boolean>());
+
+        public Agenda(World world) {
+            this.world = world;
+            this.agents = world.getAgents();
+
+            world.reset();
+            for (int i = 0; i < this.agents.size(); i++)
+                this.wakeUps.add(wakeUp(0, i));
+        }
+
+        private static long wakeUp(int time, int agentIndex) {
+            return ((long) time << 32) | agentIndex;
+        }
+
+        public int fire(int endOfTime) {
+            // Everything due at the current time, then the time of the next event (at most endOfTime)
+            int now = this.world.getTime();
+
+            this.dueAgents.clear();
+            while (!this.wakeUps.isEmpty() && (int) (this.wakeUps.peek() >>> 32) <= now)
+                this.dueAgents.add((int) this.wakeUps.poll().longValue());
+
+            do {
+                this.immediateActions.clear();
+                this.actions.clear();
+                for (int agentIndex : this.dueAgents) {
+                    Action action = this.agents.get(agentIndex).step();
+
+                    if (action.isImmediate()) {
+                        this.immediateActions.add(action);
+                    } else {
+                        this.actions.add(action);
+                    }
+                }
+
+                Collections.shuffle(this.immediateActions, this.world.getRandom(World.Stream.Schedule));
+                for (Action action : this.immediateActions)
+                    action.execute();
+            } while (this.immediateActions.size() > 0);
+
+            // Every due agent ended up with a normal action, in the order of dueAgents
+            for (int i = 0; i < this.dueAgents.size(); i++)
+                this.wakeUps.add(wakeUp(now + Math.max(this.actions.get(i).getDuration(), 1), this.dueAgents.get(i)));
+
+            ArrayList<Action> normalActions = this.actions;
+            if (this.world.nextExogenousEventTime(now) <= now) {
+                ArrayList<Action> exoActions = this.world.generateExogenousActions();
+                for (int i = 0; i < exoActions.size(); i++)
+                    normalActions.add(exoActions.get(i));
+            }
+            Simulator.removeDuplicates(normalActions, this.seen);
+
+            Collections.shuffle(normalActions, this.world.getRandom(World.Stream.Schedule));
+            for (Action action : normalActions)
+                action.execute();
+
+            int nextEventTime = Math.min(endOfTime, this.world.nextExogenousEventTime(now + 1));
+            if (!this.wakeUps.isEmpty())
+                nextEventTime = Math.min(nextEventTime, (int) (this.wakeUps.peek() >>> 32));
+
+            return Math.max(nextEventTime, now + 1);
+        }
+    }
+}
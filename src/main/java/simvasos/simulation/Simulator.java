@@ -1,66 +1,263 @@
 package simvasos.simulation;
 
+import simvasos.propcheck.PropertyChecker;
+import simvasos.propcheck.PropertyChecker.Verdict;
 import simvasos.simulation.component.Action;
 import simvasos.simulation.component.Agent;
 import simvasos.simulation.analysis.Snapshot;
+import simvasos.simulation.analysis.Trace;
 import simvasos.simulation.component.World;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedHashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by mgjin on 2017-06-21.
  */
 public class Simulator {
     public static ArrayList<Snapshot> execute(World world, int endOfTime) {
+        world.reset();
+        return resume(world, endOfTime);
+    }
+
+    public static ArrayList<Snapshot> resume(World world, int endOfTime) {
+        // Continues the current run (e.g., of a checkpoint or a fork of one, see World.checkpoint()) without reset,
+        // logging from the current tick on
         ArrayList<Snapshot> simulationLog = new ArrayList<Snapshot>();
 
         boolean stoppingCondition = false;
-        ArrayList<Action> actions = new ArrayList();
-        ArrayList<Action> immediateActions = new ArrayList();
 
-        world.reset();
         simulationLog.add(world.getCurrentSnapshot()); // Initial snapshot
 
+        Scratch scratch = new Scratch();
         while (!stoppingCondition) {
-            actions.clear();
-            do {
-                immediateActions.clear();
-                actions.clear();
-                for (Agent agent : world.getAgents()) {
-                    Action action = agent.step();
-
-                    if (action.isImmediate()) {
-                        immediateActions.add(action);
-                    } else {
-                        actions.add(action);
-                    }
-                }
-
-                Collections.shuffle(immediateActions, world.random);
-                progress(immediateActions);
-            } while (immediateActions.size() > 0);
-
-            ArrayList<Action> exoActions = world.generateExogenousActions();
-            actions.addAll(exoActions);
-            actions = new ArrayList<Action>(new LinkedHashSet<Action>(actions)); // Remove duplicates
-
-            Collections.shuffle(actions, world.random);
-            progress(actions);
-            world.progress(1);
+            tick(world, scratch);
             simulationLog.add(world.getCurrentSnapshot());
             // Verdict - evaluateProperties();
             if (world.getTime() >= endOfTime)
                 stoppingCondition = true;
+            else if (Thread.currentThread().isInterrupted()) // Cancelled by a sampler, the log is discarded anyway
+                stoppingCondition = true;
         }
 
         return simulationLog;
     }
 
+    public static Trace record(World world, int endOfTime) {
+        // Same as execute(), but into a columnar trace instead of a list of snapshots
+        Trace trace = new Trace(world.getTraceSchema());
+
+        boolean stoppingCondition = false;
+
+        world.reset();
+        trace.newTick();
+        world.recordProperties(trace); // Initial snapshot
+
+        Scratch scratch = new Scratch();
+        while (!stoppingCondition) {
+            tick(world, scratch);
+            trace.newTick();
+            world.recordProperties(trace);
+            if (world.getTime() >= endOfTime)
+                stoppingCondition = true;
+            else if (Thread.currentThread().isInterrupted())
+                stoppingCondition = true;
+        }
+
+        return trace;
+    }
+
+    public static boolean execute(World world, int endOfTime, PropertyChecker checker) {
+        // Online checking: only the current tick is kept, and the run stops as soon as the verdict is final
+        Verdict verdict = check(world, endOfTime, checker);
+
+        if (verdict == Verdict.UNDECIDED)
+            return checker.conclude();
+        else
+            return verdict == Verdict.SATISFIED;
+    }
+
+    public static Verdict check(World world, int endOfTime, PropertyChecker checker) {
+        // Same as execute(), but UNDECIDED for a run that ends undecided, which may then go on (e.g., in forks of a
+        // checkpoint of the world) with resume()
+        Trace trace = new Trace(world.getTraceSchema(), 1);
+        checker.bind(trace.getSchema());
+
+        world.reset();
+        checker.begin();
+        int tick = trace.newTick();
+        world.recordProperties(trace);
+        Verdict verdict = checker.check(trace, tick); // Initial snapshot
+
+        if (verdict == Verdict.UNDECIDED)
+            verdict = resume(world, endOfTime, checker, trace);
+        return verdict;
+    }
+
+    public static boolean resume(World world, int endOfTime, PropertyChecker checker) {
+        // Continues a run checked with check() up to the current tick, which is not checked again; the checker goes
+        // on from where it is, so that a checker keeping state across snapshots (see PropertyChecker.begin()) takes
+        // one run at a time
+        Trace trace = new Trace(world.getTraceSchema(), 1);
+        checker.bind(trace.getSchema());
+
+        Verdict verdict = resume(world, endOfTime, checker, trace);
+
+        if (verdict == Verdict.UNDECIDED)
+            return checker.conclude();
+        else
+            return verdict == Verdict.SATISFIED;
+    }
+
+    private static Verdict resume(World world, int endOfTime, PropertyChecker checker, Trace trace) {
+        boolean stoppingCondition = false;
+        Verdict verdict = Verdict.UNDECIDED;
+
+        Scratch scratch = new Scratch();
+        while (!stoppingCondition && verdict == Verdict.UNDECIDED) {
+            tick(world, scratch);
+            int tick = trace.newTick();
+            world.recordProperties(trace);
+            verdict = checker.check(trace, tick);
+            if (world.getTime() >= endOfTime)
+                stoppingCondition = true;
+            else if (Thread.currentThread().isInterrupted())
+                stoppingCondition = true;
+        }
+
+        return verdict;
+    }
+
+    public static void advance(World world, int endOfTime) {
+        // Continues the current run, without reset or recording (e.g. to measure the steady state of a world)
+        Scratch scratch = new Scratch();
+        while (world.getTime() < endOfTime && !Thread.currentThread().isInterrupted())
+            tick(world, scratch);
+    }
+
+    private static void tick(World world, Scratch scratch) {
+        ArrayList<Action> actions = scratch.actions;
+        ArrayList<Action> immediateActions = scratch.immediateActions;
+
+        do {
+            immediateActions.clear();
+            actions.clear();
+            ArrayList<Agent> agents = world.getAgents();
+            Action[] stepped = step(world, agents, scratch);
+            for (int i = 0; i < agents.size(); i++) {
+                Action action = stepped[i];
+
+                if (action.isImmediate()) {
+                    immediateActions.add(action);
+                } else {
+                    actions.add(action);
+                }
+            }
+
+            Collections.shuffle(immediateActions, world.getRandom(World.Stream.Schedule));
+            progress(immediateActions);
+        } while (immediateActions.size() > 0);
+
+        ArrayList<Action> exoActions = world.generateExogenousActions();
+        for (int i = 0; i < exoActions.size(); i++) // Not addAll(), which copies the list
+            actions.add(exoActions.get(i));
+        removeDuplicates(actions, scratch.seen);
+
+        Collections.shuffle(actions, world.getRandom(World.Stream.Schedule));
+        progress(actions);
+        world.progress(1);
+    }
+
+    private static Action[] step(World world, ArrayList<Agent> agents, Scratch scratch) {
+        // Decision phase: the action of every agent, in agent order
+        int nAgent = agents.size();
+        if (scratch.stepped.length < nAgent)
+            scratch.stepped = new Action[nAgent];
+        Action[] stepped = scratch.stepped;
+
+        int nTask = Math.min(world.getParallelism(), nAgent);
+        if (nTask <= 1) {
+            for (int i = 0; i < nAgent; i++)
+                stepped[i] = agents.get(i).step();
+            return stepped;
+        }
+
+        // Agents only read the world and change their own state while deciding, and each one draws from its own
+        // stream, so they decide concurrently; their actions are applied afterwards, one after the other
+        scratch.agents = agents;
+        scratch.nextAgent.set(0);
+        for (int t = 1; t < nTask; t++)
+            scratch.tasks.add(ForkJoinPool.commonPool().submit(scratch.stepTask));
+
+        try {
+            scratch.stepTask.run(); // The calling thread takes its share
+        } finally {
+            // Every task is done before the world goes on, even on failure or interruption (which is left to the
+            // caller), so that no agent is still deciding when the world changes
+            for (ForkJoinTask<?> task : scratch.tasks)
+                task.quietlyJoin();
+            scratch.agents = null;
+        }
+
+        Throwable failure = null;
+        for (ForkJoinTask<?> task : scratch.tasks)
+            if (failure == null)
+                failure = task.getException();
+        scratch.tasks.clear();
+
+        if (failure instanceof RuntimeException)
+            throw (RuntimeException) failure;
+        else if (failure != null)
+            throw new RuntimeException(failure);
+
+        return stepped;
+    }
+
+    static void removeDuplicates(ArrayList<Action> actions, Set<Action> seen) {
+        // In place, keeping first occurrences, as a LinkedHashSet would
+        seen.clear();
+
+        int n = 0;
+        for (int i = 0; i < actions.size(); i++) {
+            Action action = actions.get(i);
+            if (seen.add(action))
+                actions.set(n++, action);
+        }
+
+        while (actions.size() > n)
+            actions.remove(actions.size() - 1);
+    }
+
     private static void progress(ArrayList<Action> actions) {
-        for (Action action : actions) {
-            action.execute();
+        for (int i = 0; i < actions.size(); i++) {
+            actions.get(i).execute();
         }
     }
+
+    private static class Scratch {
+        // Reused from tick to tick within a run
+        private final ArrayList<Action> actions = new ArrayList<Action>();
+        private final ArrayList<Action> immediateActions = new ArrayList<Action>();
+        private final Set<Action> seen = Collections.newSetFromMap(new IdentityHashMap<Action, Boolean>());
+
+        private Action[] stepped = new Action[0];
+
+        // Parallel decision phase: every task takes the next agent to step until none is left
+        private ArrayList<Agent> agents = null;
+        private final AtomicInteger nextAgent = new AtomicInteger();
+        private final ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+        private final Runnable stepTask = new Runnable() {
+            @Override
+            public void run() {
+                ArrayList<Agent> agents = Scratch.this.agents;
+                for (int i = Scratch.this.nextAgent.getAndIncrement(); i < agents.size(); i = Scratch.this.nextAgent.getAndIncrement())
+                    Scratch.this.stepped[i] = agents.get(i).step();
+            }
+        };
+    }
 }
@@ -0,0 +1,222 @@
+package simvasos.simulation.analysis;
+
+import simvasos.simulation.analysis.TraceSchema.Type;
+import simvasos.simulation.util.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Columnar simulation trace: one primitive column per registered property, indexed by tick.
+ *
+ * A trace created with a window keeps only the last window ticks (e.g., 1 for online checking),
+ * otherwise it keeps the whole run.
+ */
+public class Trace {
+    private static final int INITIAL_ROWS = 64;
+
+    private final TraceSchema schema;
+    private final int window; // 0: unbounded
+
+    private int[][] intColumns;
+    private long[][] longColumns;
+    private double[][] doubleColumns;
+    private boolean[][] booleanColumns;
+    private long[][] locationColumns; // x and y packed into a long
+    private Object[][] objectColumns;
+
+    private int rows;
+    private int length = 0; // Number of recorded ticks
+    private int row = -1; // Row of the current tick
+
+    public Trace(TraceSchema schema) {
+        this(schema, 0);
+    }
+
+    public Trace(TraceSchema schema, int window) {
+        this.schema = schema;
+        this.window = window;
+        this.rows = window > 0 ? window : INITIAL_ROWS;
+
+        this.intColumns = new int[schema.getColumnCount(Type.INT)][this.rows];
+        this.longColumns = new long[schema.getColumnCount(Type.LONG)][this.rows];
+        this.doubleColumns = new double[schema.getColumnCount(Type.DOUBLE)][this.rows];
+        this.booleanColumns = new boolean[schema.getColumnCount(Type.BOOLEAN)][this.rows];
+        this.locationColumns = new long[schema.getColumnCount(Type.LOCATION)][this.rows];
+        this.objectColumns = new Object[schema.getColumnCount(Type.OBJECT)][this.rows];
+    }
+
+    public static Trace of(ArrayList<Snapshot> simulationLog) {
+        // Trace of a snapshot log (e.g., of Simulator.execute()); a property takes the type of its first value
+        TraceSchema schema = new TraceSchema();
+        for (Snapshot snapshot : simulationLog)
+            for (PropertyValue pv : snapshot.getProperties())
+                if (schema.getId(pv.subjectName, pv.propertyName) < 0 && pv.value != null)
+                    schema.register(pv.subject, pv.propertyName, TraceSchema.typeOf(pv.value));
+
+        Trace trace = new Trace(schema);
+        for (Snapshot snapshot : simulationLog) {
+            trace.newTick();
+            for (PropertyValue pv : snapshot.getProperties())
+                if (pv.value != null)
+                    trace.setValue(schema.getId(pv.subjectName, pv.propertyName), pv.value);
+        }
+
+        return trace;
+    }
+
+    public TraceSchema getSchema() {
+        return this.schema;
+    }
+
+    public int size() {
+        return this.length;
+    }
+
+    public void clear() {
+        this.length = 0;
+        this.row = -1;
+    }
+
+    public int newTick() {
+        if (this.window > 0) {
+            this.row = this.length % this.window;
+        } else {
+            if (this.length == this.rows)
+                grow();
+            this.row = this.length;
+        }
+
+        return this.length++;
+    }
+
+    private void grow() {
+        this.rows *= 2;
+
+        for (int i = 0; i < this.intColumns.length; i++)
+            this.intColumns[i] = Arrays.copyOf(this.intColumns[i], this.rows);
+        for (int i = 0; i < this.longColumns.length; i++)
+            this.longColumns[i] = Arrays.copyOf(this.longColumns[i], this.rows);
+        for (int i = 0; i < this.doubleColumns.length; i++)
+            this.doubleColumns[i] = Arrays.copyOf(this.doubleColumns[i], this.rows);
+        for (int i = 0; i < this.booleanColumns.length; i++)
+            this.booleanColumns[i] = Arrays.copyOf(this.booleanColumns[i], this.rows);
+        for (int i = 0; i < this.locationColumns.length; i++)
+            this.locationColumns[i] = Arrays.copyOf(this.locationColumns[i], this.rows);
+        for (int i = 0; i < this.objectColumns.length; i++)
+            this.objectColumns[i] = Arrays.copyOf(this.objectColumns[i], this.rows);
+    }
+
+    private int rowOf(int tick) {
+        if (tick < 0 || tick >= this.length || (this.window > 0 && tick < this.length - this.window))
+            throw new IndexOutOfBoundsException("Tick " + tick + " is not in the trace");
+
+        return this.window > 0 ? tick % this.window : tick;
+    }
+
+    // Record values of the current tick
+
+    public void setInt(int id, int value) {
+        this.intColumns[this.schema.getColumn(id)][this.row] = value;
+    }
+
+    public void setLong(int id, long value) {
+        this.longColumns[this.schema.getColumn(id)][this.row] = value;
+    }
+
+    public void setDouble(int id, double value) {
+        this.doubleColumns[this.schema.getColumn(id)][this.row] = value;
+    }
+
+    public void setBoolean(int id, boolean value) {
+        this.booleanColumns[this.schema.getColumn(id)][this.row] = value;
+    }
+
+    public void setLocation(int id, Location location) {
+        this.setLocation(id, location.getX(), location.getY());
+    }
+
+    public void setLocation(int id, int x, int y) {
+        this.locationColumns[this.schema.getColumn(id)][this.row] = ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    public void setObject(int id, Object value) {
+        // Kept by reference: a mutable value (e.g., a grid) is recorded as a copy, or every tick reads its latest state
+        this.objectColumns[this.schema.getColumn(id)][this.row] = value;
+    }
+
+    public void setValue(int id, Object value) {
+        // Boxed access, for subjects that only provide a property map
+        switch (this.schema.getType(id)) {
+            case INT:
+                setInt(id, (Integer) value);
+                break;
+            case LONG:
+                setLong(id, (Long) value);
+                break;
+            case DOUBLE:
+                setDouble(id, (Double) value);
+                break;
+            case BOOLEAN:
+                setBoolean(id, (Boolean) value);
+                break;
+            case LOCATION:
+                setLocation(id, (Location) value);
+                break;
+            default:
+                setObject(id, value);
+        }
+    }
+
+    // Read recorded values
+
+    public int getInt(int id, int tick) {
+        return this.intColumns[this.schema.getColumn(id)][rowOf(tick)];
+    }
+
+    public long getLong(int id, int tick) {
+        return this.longColumns[this.schema.getColumn(id)][rowOf(tick)];
+    }
+
+    public double getDouble(int id, int tick) {
+        return this.doubleColumns[this.schema.getColumn(id)][rowOf(tick)];
+    }
+
+    public boolean getBoolean(int id, int tick) {
+        return this.booleanColumns[this.schema.getColumn(id)][rowOf(tick)];
+    }
+
+    public int getLocationX(int id, int tick) {
+        return (int) (this.locationColumns[this.schema.getColumn(id)][rowOf(tick)] >> 32);
+    }
+
+    public int getLocationY(int id, int tick) {
+        return (int) this.locationColumns[this.schema.getColumn(id)][rowOf(tick)];
+    }
+
+    public Location getLocation(int id, int tick) {
+        return new Location(getLocationX(id, tick), getLocationY(id, tick));
+    }
+
+    public Object getObject(int id, int tick) {
+        return this.objectColumns[this.schema.getColumn(id)][rowOf(tick)];
+    }
+
+    public Object getValue(int id, int tick) {
+        // Boxed access, for printing and debugging
+        switch (this.schema.getType(id)) {
+            case INT:
+                return getInt(id, tick);
+            case LONG:
+                return getLong(id, tick);
+            case DOUBLE:
+                return getDouble(id, tick);
+            case BOOLEAN:
+                return getBoolean(id, tick);
+            case LOCATION:
+                return getLocation(id, tick);
+            default:
+                return getObject(id, tick);
+        }
+    }
+}
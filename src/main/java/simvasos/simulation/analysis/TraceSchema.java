@@ -0,0 +1,112 @@
+package simvasos.simulation.analysis;
+
+import simvasos.simulation.component.Agent;
+import simvasos.simulation.util.Location;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Properties recorded in a trace, registered once per subject.
+ *
+ * Each property gets an integer id and a column in the storage of its type, so that a trace stores values
+ * without boxing and checkers resolve the properties they need once, before the simulation starts.
+ */
+public class TraceSchema {
+    public enum Type {INT, LONG, DOUBLE, BOOLEAN, LOCATION, OBJECT}
+
+    private final ArrayList<HasName> subjects = new ArrayList<HasName>();
+    private final ArrayList<String> subjectNames = new ArrayList<String>();
+    private final ArrayList<String> propertyNames = new ArrayList<String>();
+    private final ArrayList<Type> types = new ArrayList<Type>();
+    private int[] columns = new int[16]; // Looked up on every record, hence not boxed
+
+    private final int[] columnCounts = new int[Type.values().length];
+    private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+
+    public int register(HasName subject, String propertyName, Type type) {
+        String subjectName = subject == null ? "World" : subject.getName();
+        String key = subjectName + "." + propertyName;
+        if (this.ids.containsKey(key))
+            throw new IllegalArgumentException("Property already registered: " + key);
+
+        int id = this.types.size();
+        if (id == this.columns.length)
+            this.columns = Arrays.copyOf(this.columns, id * 2);
+
+        this.subjects.add(subject);
+        this.subjectNames.add(subjectName);
+        this.propertyNames.add(propertyName);
+        this.types.add(type);
+        this.columns[id] = this.columnCounts[type.ordinal()]++;
+        this.ids.put(key, id);
+
+        return id;
+    }
+
+    public static Type typeOf(Object value) {
+        if (value instanceof Integer)
+            return Type.INT;
+        else if (value instanceof Long)
+            return Type.LONG;
+        else if (value instanceof Double)
+            return Type.DOUBLE;
+        else if (value instanceof Boolean)
+            return Type.BOOLEAN;
+        else if (value instanceof Location)
+            return Type.LOCATION;
+        else
+            return Type.OBJECT;
+    }
+
+    public int size() {
+        return this.types.size();
+    }
+
+    public int getId(String subjectName, String propertyName) {
+        Integer id = this.ids.get(subjectName + "." + propertyName);
+        return id == null ? -1 : id;
+    }
+
+    public int getWorldPropertyId(String propertyName) {
+        return getId("World", propertyName);
+    }
+
+    public int[] getAgentPropertyIds(String propertyName) {
+        ArrayList<Integer> found = new ArrayList<Integer>();
+        for (int id = 0; id < this.size(); id++)
+            if (this.subjects.get(id) instanceof Agent && this.propertyNames.get(id).equals(propertyName))
+                found.add(id);
+
+        int[] res = new int[found.size()];
+        for (int i = 0; i < res.length; i++)
+            res[i] = found.get(i);
+
+        return res;
+    }
+
+    public HasName getSubject(int id) {
+        return this.subjects.get(id);
+    }
+
+    public String getSubjectName(int id) {
+        return this.subjectNames.get(id);
+    }
+
+    public String getPropertyName(int id) {
+        return this.propertyNames.get(id);
+    }
+
+    public Type getType(int id) {
+        return this.types.get(id);
+    }
+
+    int getColumn(int id) {
+        return this.columns[id];
+    }
+
+    int getColumnCount(Type type) {
+        return this.columnCounts[type.ordinal()];
+    }
+}
@@ -20,6 +20,10 @@ public abstract class Action implements HasName {
         return immediate;
     }
 
+    public int getDuration() {
+        return duration;
+    }
+
     public abstract void execute();
     public abstract String getName();
 
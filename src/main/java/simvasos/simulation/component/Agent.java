@@ -1,8 +1,14 @@
 package simvasos.simulation.component;
 
 import simvasos.simulation.analysis.HasName;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
+import simvasos.simulation.util.RandomStream;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
 
 /**
  * Created by mgjin on 2017-06-21.
@@ -11,13 +17,55 @@ public abstract class Agent implements HasName {
     protected World world = null;
     protected String name = null;
 
+    private final RandomStream random = new RandomStream(0); // Seeded by the world, see World.seedStreams()
+
     public Agent(World world) {
         this.world = world;
     }
 
+    protected Random getRandom() {
+        // Every draw of the agent goes through here: its own stream, so that an agent does not depend on the others
+        // deciding before it
+        return this.random;
+    }
+
+    void setRandomSeed(long seed) {
+        this.random.setSeed(seed);
+    }
+
+    void copyRandom(Agent agent) {
+        this.random.copyFrom(agent.random);
+    }
+
+    boolean hasDrawn() {
+        return this.random.hasDrawn();
+    }
+
     public abstract Action step();
+    public abstract Agent fork(World world);
+
+    protected void resolveFork(Agent agent) {
+        // Called on a fork of the given agent once every agent of its world is forked, see World.fork(long);
+        // override me if the agent refers to other agents
+    }
+
     public abstract void reset();
     public abstract String getName();
 
     public abstract HashMap<String, Object> getProperties();
+
+    // Trace recording; by default bridged through getProperties(), override me to record without boxing
+    private LinkedHashMap<String, Integer> propertyIds = null;
+
+    public void registerProperties(TraceSchema schema) {
+        this.propertyIds = new LinkedHashMap<String, Integer>();
+
+        for (Map.Entry<String, Object> property : this.getProperties().entrySet())
+            this.propertyIds.put(property.getKey(), schema.register(this, property.getKey(), TraceSchema.typeOf(property.getValue())));
+    }
+
+    public void recordProperties(Trace trace) {
+        for (Map.Entry<String, Object> property : this.getProperties().entrySet())
+            trace.setValue(this.propertyIds.get(property.getKey()), property.getValue());
+    }
 }
@@ -2,19 +2,52 @@ package simvasos.simulation.component;
 
 import simvasos.simulation.util.Location;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 public class Message {
     public enum Purpose {ReqInfo, ReqAction, Response, Delivery, Order}
 
+    // Typed payload slot; keys are created once (as constants) and index a plain array in every message
+    public static final class Key<T> {
+        private static final ArrayList<Key<?>> keys = new ArrayList<Key<?>>();
+
+        private final String name;
+        private final int index;
+
+        public Key(String name) {
+            this.name = name;
+
+            synchronized (keys) {
+                this.index = keys.size();
+                keys.add(this);
+            }
+        }
+
+        public static List<Key<?>> values() {
+            synchronized (keys) {
+                return Collections.unmodifiableList(new ArrayList<Key<?>>(keys));
+            }
+        }
+
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public String toString() {
+            return this.name;
+        }
+    }
+
     public String name = null; // description
 
     public String sender = null;
     public String receiver = null;
     public Location location = null;
     public Purpose purpose = null;
-    public Map<String, Object> data = new HashMap<String, Object>();
     public int additionalBenefit = 0;
     public int reducedCost = 0;
     public int timestamp = 0;
@@ -22,6 +55,74 @@ public class Message {
     public String context = null;
     public int trust = 0;
 
+    private Object[] values = new Object[0];
+    private boolean[] present = new boolean[0]; // A key may be sent with a null value, as a flag
+
+    public Message() {
+    }
+
+    public Message(Message message) {
+        this.name = message.name;
+        this.sender = message.sender;
+        this.receiver = message.receiver;
+        this.location = message.location == null ? null : new Location(message.location);
+        this.purpose = message.purpose;
+        this.values = message.values.clone();
+        this.present = message.present.clone();
+        this.additionalBenefit = message.additionalBenefit;
+        this.reducedCost = message.reducedCost;
+        this.timestamp = message.timestamp;
+
+        this.context = message.context;
+        this.trust = message.trust;
+    }
+
+    public void remap(World world) {
+        // For messages copied into a fork: a value keeps its type, but refers to its counterpart in the fork
+        for (int i = 0; i < this.values.length; i++)
+            this.values[i] = world.remap(this.values[i]);
+    }
+
+    public void clear() {
+        // For messages recycled by their sender
+        this.name = null;
+        this.sender = null;
+        this.receiver = null;
+        this.location = null;
+        this.purpose = null;
+        Arrays.fill(this.values, null);
+        Arrays.fill(this.present, false);
+        this.additionalBenefit = 0;
+        this.reducedCost = 0;
+        this.timestamp = 0;
+
+        this.context = null;
+        this.trust = 0;
+    }
+
+    public <T> void put(Key<T> key, T value) {
+        if (key.index >= this.values.length) {
+            this.values = Arrays.copyOf(this.values, key.index + 1);
+            this.present = Arrays.copyOf(this.present, key.index + 1);
+        }
+
+        this.values[key.index] = value;
+        this.present[key.index] = true;
+    }
+
+    public <T> T get(Key<T> key) {
+        if (key.index >= this.values.length)
+            return null;
+
+        @SuppressWarnings("unchecked") // put() stores only a T under a Key<T>, and remap() keeps the type of a value
+        T value = (T) this.values[key.index];
+        return value;
+    }
+
+    public boolean has(Key<?> key) {
+        return key.index < this.present.length && this.present[key.index];
+    }
+
     public String getName() {
         return this.name;
     }
@@ -1,6 +1,9 @@
 package simvasos.simulation.component;
 
 import simvasos.simulation.analysis.Snapshot;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
+import simvasos.simulation.util.RandomStream;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -11,15 +14,69 @@ import java.util.Random;
  * Created by mgjin on 2017-06-21.
  */
 public abstract class World {
-    public final Random random;
+    public enum Stream {Schedule, Environment}
+
+    private final RandomStream[] streams = newStreams(); // Seeded on reset, see seedStreams()
 
     protected long seed = 0;
     protected ArrayList<Agent> agents = new ArrayList<Agent>();
     protected int time = 0;
+    private int parallelism = 0;
+    private int forkCount = 0;
+
+    private TraceSchema traceSchema = null;
+    private int timeId;
 
     public World(long seed) {
         this.seed = seed;
-        this.random = new Random(seed);
+    }
+
+    protected World(World world, long seed) {
+        this.seed = seed;
+        this.time = world.time;
+        this.parallelism = world.parallelism;
+    }
+
+    public World fork() {
+        // The seed of the fork is derived, not drawn, so that forking does not change how this world goes on
+        long forkSeed = RandomStream.derive(this.seed, Stream.values().length + 1);
+        return fork(RandomStream.derive(forkSeed, this.forkCount++));
+    }
+
+    public World fork(long seed) {
+        // Independent copy of this world with its own random stream; agents are copied in order, then refer to the
+        // forks of the agents their originals refer to (e.g., ControlTower), whatever the order of the agents
+        World forked = this.copy(seed);
+
+        for (Agent agent : this.agents)
+            forked.agents.add(agent.fork(forked));
+        for (int i = 0; i < this.agents.size(); i++)
+            forked.agents.get(i).resolveFork(this.agents.get(i));
+        forked.seedStreams();
+
+        return forked;
+    }
+
+    public World checkpoint() {
+        // Copy of this world in its current state, random streams included, that goes on exactly as this world would
+        // (see Simulator.resume()); a prefix of a run is then simulated once, and its continuations, each with
+        // streams of its own, are forks of the checkpoint. Reset, it starts over from the seed of this world
+        World checkpoint = fork(this.seed);
+
+        for (int i = 0; i < this.streams.length; i++)
+            checkpoint.streams[i].copyFrom(this.streams[i]);
+        for (int i = 0; i < this.agents.size(); i++)
+            checkpoint.agents.get(i).copyRandom(this.agents.get(i));
+
+        return checkpoint;
+    }
+
+    protected abstract World copy(long seed);
+
+    public Object remap(Object value) {
+        // The counterpart in this world of a value from the world this one is forked from; values that belong to no
+        // world (e.g., strings) are their own counterparts, as are the agents, which a fork looks up by name
+        return value;
     }
 
     public ArrayList<Agent> getAgents() {
@@ -28,10 +85,11 @@ public abstract class World {
 
     public void addAgent(Agent agent) {
         agents.add(agent);
+        this.traceSchema = null;
     }
 
     public void reset() {
-        this.random.setSeed(this.seed);
+        seedStreams();
 
         for (Agent agent : this.agents)
             agent.reset();
@@ -47,6 +105,58 @@ public abstract class World {
         this.seed = seed;
     }
 
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    public void setParallelism(int parallelism) {
+        // 0 (default) or 1: agents decide one after the other on the calling thread; from 2 on, on up to the given
+        // number of threads. Either way each agent draws from its own stream seeded from the seed of the world, as the
+        // world does for each purpose (see getRandom()), and the actions are applied after every agent decided, in the
+        // order of a seeded shuffle; a run is then the same for any number of threads
+        if (parallelism < 0)
+            throw new IllegalArgumentException("Negative parallelism: " + parallelism);
+
+        this.parallelism = parallelism;
+    }
+
+    public Random getRandom(Stream stream) {
+        // No stream is shared by the world and its agents, or by two purposes
+        return this.streams[stream.ordinal()];
+    }
+
+    private static RandomStream[] newStreams() {
+        RandomStream[] streams = new RandomStream[Stream.values().length];
+        for (int i = 0; i < streams.length; i++)
+            streams[i] = new RandomStream(0);
+
+        return streams;
+    }
+
+    private void seedStreams() {
+        // Every stream is derived from the seed of the world, under its purpose or the position of its agent, so
+        // that no stream depends on the draws of another
+        for (Stream stream : Stream.values())
+            this.streams[stream.ordinal()].setSeed(RandomStream.derive(this.seed, stream.ordinal()));
+
+        long agentSeed = RandomStream.derive(this.seed, Stream.values().length); // Forks come next, see fork()
+        for (int i = 0; i < this.agents.size(); i++)
+            this.agents.get(i).setRandomSeed(RandomStream.derive(agentSeed, i));
+    }
+
+    public boolean hasDrawn() {
+        // Whether this world or one of its agents drew from a random stream since the last reset, that is, whether
+        // the run so far depends on the seed (see ParallelSampler)
+        for (RandomStream stream : this.streams)
+            if (stream.hasDrawn())
+                return true;
+        for (Agent agent : this.agents)
+            if (agent.hasDrawn())
+                return true;
+
+        return false;
+    }
+
     public int getTime() {
         return this.time;
     }
@@ -70,5 +180,35 @@ public abstract class World {
         return snapshot;
     }
 
+    public TraceSchema getTraceSchema() {
+        // Subjects and properties do not change once the world is populated
+        if (this.traceSchema == null) {
+            this.traceSchema = new TraceSchema();
+            this.registerProperties(this.traceSchema);
+        }
+
+        return this.traceSchema;
+    }
+
+    protected void registerProperties(TraceSchema schema) {
+        this.timeId = schema.register(null, "Time", TraceSchema.Type.INT);
+
+        for (Agent agent : this.agents)
+            agent.registerProperties(schema);
+    }
+
+    public void recordProperties(Trace trace) {
+        trace.setInt(this.timeId, this.time);
+
+        for (Agent agent : this.agents)
+            agent.recordProperties(trace);
+    }
+
     public abstract ArrayList<Action> generateExogenousActions();
+
+    public int nextExogenousEventTime(int time) {
+        // Earliest time, not before the given one, at which generateExogenousActions() may return something;
+        // by default on every tick. Override me to let the event simulator skip the ticks in between
+        return time;
+    }
 }
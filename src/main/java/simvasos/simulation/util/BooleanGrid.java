@@ -0,0 +1,283 @@
+package simvasos.simulation.util;
+
+import java.util.Arrays;
+
+/**
+ * Grid of booleans packed in 64-bit words, with whole-grid merges a word at a time.
+ *
+ * Cells are numbered in x-major order (x * ySize + y), which is also the order of nextSetCell() and nextClearCell().
+ * Words are kept in pages of PAGE_WORDS, allocated on the first set cell; a missing page reads as clear, so a large
+ * map with few set cells only takes the memory of its pages in use.
+ */
+public class BooleanGrid {
+    static final int PAGE_SHIFT = 6;
+    public static final int PAGE_WORDS = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_WORDS - 1;
+
+    private final int xSize;
+    private final int ySize;
+    private final int nCell;
+    private final int nWord;
+
+    private final long[][] pages;
+    private final int[] pageVersions; // Changed on every write to a page, so that derived structures know what to sync
+
+    public BooleanGrid(int xSize, int ySize) {
+        if (xSize < 0 || ySize < 0 || (long) xSize * ySize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid size out of range: " + xSize + "x" + ySize);
+
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.nCell = xSize * ySize;
+        this.nWord = (int) (((long) this.nCell + 63) >>> 6);
+
+        this.pages = new long[(this.nWord + PAGE_MASK) >>> PAGE_SHIFT][];
+        this.pageVersions = new int[this.pages.length];
+    }
+
+    public BooleanGrid(BooleanGrid grid) {
+        this.xSize = grid.xSize;
+        this.ySize = grid.ySize;
+        this.nCell = grid.nCell;
+        this.nWord = grid.nWord;
+
+        this.pages = new long[grid.pages.length][];
+        for (int p = 0; p < this.pages.length; p++)
+            if (grid.pages[p] != null)
+                this.pages[p] = grid.pages[p].clone();
+        this.pageVersions = new int[this.pages.length];
+    }
+
+    public int getXSize() {
+        return this.xSize;
+    }
+
+    public int getYSize() {
+        return this.ySize;
+    }
+
+    public int getCell(int x, int y) {
+        if (x >= this.xSize || y >= this.ySize || x < 0 || y < 0)
+            throw new IndexOutOfBoundsException();
+
+        return x * this.ySize + y;
+    }
+
+    public int getX(int cell) {
+        return cell / this.ySize;
+    }
+
+    public int getY(int cell) {
+        return cell % this.ySize;
+    }
+
+    public boolean getValue(Location location) {
+        return this.getValue(location.getX(), location.getY());
+    }
+
+    public boolean getValue(int x, int y) {
+        int cell = getCell(x, y);
+        return (getWord(cell >>> 6) & (1L << cell)) != 0;
+    }
+
+    public void setValue(Location location, boolean val) {
+        this.setValue(location.getX(), location.getY(), val);
+    }
+
+    public void setValue(int x, int y, boolean val) {
+        int cell = getCell(x, y);
+        int i = cell >>> 6;
+        long[] page = this.pages[i >>> PAGE_SHIFT];
+
+        if (val)
+            (page == null ? newPage(i >>> PAGE_SHIFT) : page)[i & PAGE_MASK] |= 1L << cell;
+        else if (page != null)
+            page[i & PAGE_MASK] &= ~(1L << cell);
+        else
+            return;
+
+        this.pageVersions[i >>> PAGE_SHIFT]++;
+    }
+
+    public void clear() {
+        // Releases every page
+        for (int p = 0; p < this.pages.length; p++)
+            if (this.pages[p] != null) {
+                this.pages[p] = null;
+                this.pageVersions[p]++;
+            }
+    }
+
+    public void copyFrom(BooleanGrid grid) {
+        checkSize(grid);
+        for (int p = 0; p < this.pages.length; p++) {
+            if (grid.pages[p] == null && this.pages[p] == null)
+                continue;
+
+            if (grid.pages[p] == null)
+                this.pages[p] = null;
+            else if (this.pages[p] == null)
+                this.pages[p] = grid.pages[p].clone();
+            else
+                System.arraycopy(grid.pages[p], 0, this.pages[p], 0, this.pages[p].length);
+            this.pageVersions[p]++;
+        }
+    }
+
+    public void or(BooleanGrid grid) {
+        checkSize(grid);
+        for (int p = 0; p < this.pages.length; p++) {
+            long[] other = grid.pages[p];
+            if (other == null)
+                continue;
+
+            long[] page = this.pages[p] == null ? newPage(p) : this.pages[p];
+            for (int i = 0; i < page.length; i++)
+                page[i] |= other[i];
+            this.pageVersions[p]++;
+        }
+    }
+
+    public void and(BooleanGrid grid) {
+        checkSize(grid);
+        for (int p = 0; p < this.pages.length; p++) {
+            long[] page = this.pages[p];
+            if (page == null)
+                continue;
+
+            long[] other = grid.pages[p];
+            if (other == null)
+                this.pages[p] = null;
+            else
+                for (int i = 0; i < page.length; i++)
+                    page[i] &= other[i];
+            this.pageVersions[p]++;
+        }
+    }
+
+    public void andNot(BooleanGrid grid) {
+        checkSize(grid);
+        for (int p = 0; p < this.pages.length; p++) {
+            long[] page = this.pages[p];
+            long[] other = grid.pages[p];
+            if (page == null || other == null)
+                continue;
+
+            for (int i = 0; i < page.length; i++)
+                page[i] &= ~other[i];
+            this.pageVersions[p]++;
+        }
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long[] page : this.pages)
+            if (page != null)
+                for (long word : page)
+                    count += Long.bitCount(word);
+
+        return count;
+    }
+
+    public int getPageCount() {
+        // Pages in use
+        int count = 0;
+        for (long[] page : this.pages)
+            if (page != null)
+                count++;
+
+        return count;
+    }
+
+    public int nextSetCell(int fromCell) {
+        // The first set cell at or after fromCell, -1 if there is none
+        if (fromCell >= this.nCell)
+            return -1;
+
+        int i = fromCell >>> 6;
+        long word = getWord(i) & (-1L << fromCell);
+        while (word == 0) {
+            if (++i >= this.nWord)
+                return -1;
+            if (this.pages[i >>> PAGE_SHIFT] == null && (i & PAGE_MASK) == 0) {
+                i += PAGE_WORDS - 1; // Skip the missing page
+                continue;
+            }
+            word = getWord(i);
+        }
+
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    public int nextClearCell(int fromCell) {
+        // The first clear cell at or after fromCell, -1 if there is none
+        if (fromCell >= this.nCell)
+            return -1;
+
+        int i = fromCell >>> 6;
+        long word = ~getWord(i) & (-1L << fromCell);
+        while (word == 0) {
+            if (++i >= this.nWord)
+                return -1;
+            word = ~getWord(i);
+        }
+
+        int cell = (i << 6) + Long.numberOfTrailingZeros(word);
+        return cell < this.nCell ? cell : -1; // Bits past the last cell are always clear
+    }
+
+    int getPageTotal() {
+        // Pages in use or not
+        return this.pages.length;
+    }
+
+    long[] getPage(int p) {
+        // Null for a page not in use, i.e. all clear
+        return this.pages[p];
+    }
+
+    int getPageVersion(int p) {
+        return this.pageVersions[p];
+    }
+
+    private long getWord(int i) {
+        long[] page = this.pages[i >>> PAGE_SHIFT];
+        return page == null ? 0 : page[i & PAGE_MASK];
+    }
+
+    private long[] newPage(int p) {
+        // The last page only covers the words left
+        this.pages[p] = new long[Math.min(PAGE_WORDS, this.nWord - (p << PAGE_SHIFT))];
+        return this.pages[p];
+    }
+
+    private void checkSize(BooleanGrid grid) {
+        if (grid.xSize != this.xSize || grid.ySize != this.ySize)
+            throw new IllegalArgumentException("Grid size mismatch: " + grid.xSize + "x" + grid.ySize + " for " + this.xSize + "x" + this.ySize);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof BooleanGrid) {
+            BooleanGrid grid = (BooleanGrid) obj;
+            if (this.xSize != grid.xSize || this.ySize != grid.ySize)
+                return false;
+
+            for (int i = 0; i < this.nWord; i++)
+                if (getWord(i) != grid.getWord(i))
+                    return false;
+
+            return true;
+        } else
+            return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < this.nWord; i++)
+            hash = 31 * hash + Long.hashCode(getWord(i));
+
+        return hash;
+    }
+}
@@ -0,0 +1,190 @@
+package simvasos.simulation.util;
+
+import java.util.Arrays;
+
+/**
+ * Grid of ints; cells are numbered in x-major order (x * ySize + y), as in BooleanGrid.
+ *
+ * Cells are kept in pages of PAGE_SIZE consecutive cells, allocated on the first write of a value other than 0; a
+ * missing page reads as 0. A large map with few set cells only takes the memory of its pages in use.
+ */
+public class IntGrid {
+    public static final int PAGE_SHIFT = 12;
+    public static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int xSize;
+    private final int ySize;
+    private final int nCell;
+
+    private final int[][] pages;
+    private int version = 0; // Changed on every write, so that derived structures know when to rebuild
+    private boolean frozen = false;
+
+    public IntGrid(int xSize, int ySize) {
+        if (xSize < 0 || ySize < 0 || (long) xSize * ySize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid size out of range: " + xSize + "x" + ySize);
+
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.nCell = xSize * ySize;
+
+        this.pages = new int[(int) (((long) this.nCell + PAGE_MASK) >>> PAGE_SHIFT)][];
+    }
+
+    public IntGrid(IntGrid grid) {
+        // A copy is never frozen
+        this.xSize = grid.xSize;
+        this.ySize = grid.ySize;
+        this.nCell = grid.nCell;
+
+        this.pages = new int[grid.pages.length][];
+        for (int p = 0; p < this.pages.length; p++)
+            if (grid.pages[p] != null)
+                this.pages[p] = grid.pages[p].clone();
+    }
+
+    public IntGrid freeze() {
+        // From now on the grid is read-only, e.g. to be shared between worlds and threads
+        this.frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    private void checkWritable() {
+        if (this.frozen)
+            throw new UnsupportedOperationException("Frozen grid");
+    }
+
+    public int getXSize() {
+        return this.xSize;
+    }
+
+    public int getYSize() {
+        return this.ySize;
+    }
+
+    public int size() {
+        return this.nCell;
+    }
+
+    public int getPageCount() {
+        // Pages in use
+        int count = 0;
+        for (int[] page : this.pages)
+            if (page != null)
+                count++;
+
+        return count;
+    }
+
+    public int getVersion() {
+        return this.version;
+    }
+
+    public int getCell(int x, int y) {
+        if (x >= this.xSize || y >= this.ySize || x < 0 || y < 0)
+            throw new IndexOutOfBoundsException();
+
+        return x * this.ySize + y;
+    }
+
+    public int getValue(Location location) {
+        return this.getValue(location.getX(), location.getY());
+    }
+
+    public int getValue(int x, int y) {
+        return getValueAt(getCell(x, y));
+    }
+
+    public int getValueAt(int cell) {
+        int[] page = this.pages[cell >>> PAGE_SHIFT];
+        return page == null ? 0 : page[cell & PAGE_MASK];
+    }
+
+    public void setValue(Location location, int val) {
+        this.setValue(location.getX(), location.getY(), val);
+    }
+
+    public void setValue(int x, int y, int val) {
+        setValueAt(getCell(x, y), val);
+    }
+
+    public void setValueAt(int cell, int val) {
+        checkWritable();
+
+        int[] page = this.pages[cell >>> PAGE_SHIFT];
+        if (page == null) {
+            if (val == 0)
+                return;
+            page = newPage(cell >>> PAGE_SHIFT);
+        }
+
+        page[cell & PAGE_MASK] = val;
+        this.version++;
+    }
+
+    public void fill(int val) {
+        checkWritable();
+        for (int p = 0; p < this.pages.length; p++)
+            if (val == 0)
+                this.pages[p] = null;
+            else
+                Arrays.fill(this.pages[p] == null ? newPage(p) : this.pages[p], val);
+        this.version++;
+    }
+
+    public void clear() {
+        // Releases every page
+        fill(0);
+    }
+
+    public void copyFrom(IntGrid grid) {
+        if (grid.xSize != this.xSize || grid.ySize != this.ySize)
+            throw new IllegalArgumentException("Grid size mismatch: " + grid.xSize + "x" + grid.ySize + " for " + this.xSize + "x" + this.ySize);
+
+        checkWritable();
+        for (int p = 0; p < this.pages.length; p++)
+            if (grid.pages[p] == null)
+                this.pages[p] = null;
+            else if (this.pages[p] == null)
+                this.pages[p] = grid.pages[p].clone();
+            else
+                System.arraycopy(grid.pages[p], 0, this.pages[p], 0, this.pages[p].length);
+        this.version++;
+    }
+
+    private int[] newPage(int p) {
+        // The last page only covers the cells left
+        this.pages[p] = new int[Math.min(PAGE_SIZE, this.nCell - (p << PAGE_SHIFT))];
+        return this.pages[p];
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof IntGrid) {
+            IntGrid grid = (IntGrid) obj;
+            if (this.xSize != grid.xSize || this.ySize != grid.ySize)
+                return false;
+
+            for (int cell = 0; cell < this.nCell; cell++)
+                if (getValueAt(cell) != grid.getValueAt(cell))
+                    return false;
+
+            return true;
+        } else
+            return false;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int cell = 0; cell < this.nCell; cell++)
+            hash = 31 * hash + getValueAt(cell);
+
+        return hash;
+    }
+}
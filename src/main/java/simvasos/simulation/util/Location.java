@@ -62,6 +62,10 @@ public class Location implements Cloneable {
         return xDistanceTo(loc) + yDistanceTo(loc);
     }
 
+    public int distanceTo(int x, int y) {
+        return Math.abs(this.x - x) + Math.abs(this.y - y);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof Location) {
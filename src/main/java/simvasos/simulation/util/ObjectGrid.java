@@ -0,0 +1,147 @@
+package simvasos.simulation.util;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Grid of objects; cells are numbered in x-major order (x * ySize + y), as in BooleanGrid.
+ * Cells are created by the given factory (if any) instead of reflectively as in Maptrix, on the first read of the
+ * cell, so that a large map only holds the elements in use.
+ *
+ * Cells are kept in pages of IntGrid.PAGE_SIZE consecutive cells, allocated on the first element of the page.
+ */
+public class ObjectGrid<T> {
+    private static final int PAGE_SHIFT = IntGrid.PAGE_SHIFT;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final int xSize;
+    private final int ySize;
+    private final int nCell;
+
+    private final Supplier<T> factory;
+    private final Object[][] pages;
+
+    public ObjectGrid(int xSize, int ySize) {
+        this(xSize, ySize, null);
+    }
+
+    public ObjectGrid(int xSize, int ySize, Supplier<T> factory) {
+        if (xSize < 0 || ySize < 0 || (long) xSize * ySize > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid size out of range: " + xSize + "x" + ySize);
+
+        this.xSize = xSize;
+        this.ySize = ySize;
+        this.nCell = xSize * ySize;
+
+        this.factory = factory;
+        this.pages = new Object[(int) (((long) this.nCell + PAGE_MASK) >>> PAGE_SHIFT)][];
+    }
+
+    public ObjectGrid(ObjectGrid<T> grid) {
+        this.xSize = grid.xSize;
+        this.ySize = grid.ySize;
+        this.nCell = grid.nCell;
+
+        // Shallow copy: elements are shared, callers replace mutable ones (e.g., lists) themselves
+        this.factory = grid.factory;
+        this.pages = new Object[grid.pages.length][];
+        for (int p = 0; p < this.pages.length; p++)
+            if (grid.pages[p] != null)
+                this.pages[p] = grid.pages[p].clone();
+    }
+
+    public int getXSize() {
+        return this.xSize;
+    }
+
+    public int getYSize() {
+        return this.ySize;
+    }
+
+    public int getCell(int x, int y) {
+        if (x >= this.xSize || y >= this.ySize || x < 0 || y < 0)
+            throw new IndexOutOfBoundsException();
+
+        return x * this.ySize + y;
+    }
+
+    public int size() {
+        return this.nCell;
+    }
+
+    public int getPageCount() {
+        // Pages in use
+        int count = 0;
+        for (Object[] page : this.pages)
+            if (page != null)
+                count++;
+
+        return count;
+    }
+
+    public void reset() {
+        // Every cell gets a new element from the factory on its next read, or reads null without a factory
+        Arrays.fill(this.pages, null);
+    }
+
+    public T getValue(Location location) {
+        return this.getValue(location.getX(), location.getY());
+    }
+
+    public T getValue(int x, int y) {
+        return getValueAt(getCell(x, y));
+    }
+
+    public T getValueAt(int cell) {
+        Object[] page = this.pages[cell >>> PAGE_SHIFT];
+        @SuppressWarnings("unchecked") // Cells are written only by setValueAt(), fill() and the factory, or copied from a grid of T
+        T value = page == null ? null : (T) page[cell & PAGE_MASK];
+
+        if (value == null && this.factory != null) {
+            value = this.factory.get();
+            setValueAt(cell, value);
+        }
+
+        return value;
+    }
+
+    public boolean hasValueAt(int cell) {
+        // Whether the cell holds an element, without creating one
+        Object[] page = this.pages[cell >>> PAGE_SHIFT];
+        return page != null && page[cell & PAGE_MASK] != null;
+    }
+
+    public void setValue(Location location, T val) {
+        this.setValue(location.getX(), location.getY(), val);
+    }
+
+    public void setValue(int x, int y, T val) {
+        setValueAt(getCell(x, y), val);
+    }
+
+    public void setValueAt(int cell, T val) {
+        Object[] page = this.pages[cell >>> PAGE_SHIFT];
+        if (page == null) {
+            if (val == null)
+                return;
+            page = newPage(cell >>> PAGE_SHIFT);
+        }
+
+        page[cell & PAGE_MASK] = val;
+    }
+
+    public void fill(T val) {
+        for (int p = 0; p < this.pages.length; p++)
+            if (val == null)
+                this.pages[p] = null;
+            else
+                Arrays.fill(this.pages[p] == null ? newPage(p) : this.pages[p], val);
+    }
+
+    private Object[] newPage(int p) {
+        // The last page only covers the cells left
+        this.pages[p] = new Object[Math.min(PAGE_SIZE, this.nCell - (p << PAGE_SHIFT))];
+        return this.pages[p];
+    }
+}
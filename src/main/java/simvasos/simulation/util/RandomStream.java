@@ -0,0 +1,89 @@
+package simvasos.simulation.util;
+
+import java.util.Random;
+
+/**
+ * Counter-based random stream: the n-th draw is the SplitMix64 mix of seed + n * GAMMA, as in SplittableRandom.
+ * Unlike Random, a draw takes no atomic update, and streams for a replication, an agent or a purpose are derived
+ * from a seed and a key (see derive()) instead of being drawn from another stream, so that they do not depend on
+ * the order in which they are created or used.
+ *
+ * A Random so that it goes wherever one is taken (e.g., Collections.shuffle). Not thread-safe: one stream per user.
+ */
+public class RandomStream extends Random {
+    private static final long serialVersionUID = 1L;
+
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+    private long origin; // State as seeded, see hasDrawn()
+    private double nextGaussian;
+    private boolean hasNextGaussian = false;
+
+    public RandomStream(long seed) {
+        super(seed); // Calls setSeed()
+    }
+
+    public static long mix(long z) {
+        // SplitMix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    public static long derive(long seed, long key) {
+        // Seed of the stream under the given key, e.g., derive(derive(worldSeed, purpose), agentIndex)
+        return mix(seed + (key + 1) * GAMMA);
+    }
+
+    public void copyFrom(RandomStream stream) {
+        // This stream then draws what the given one does
+        this.state = stream.state;
+        this.origin = stream.origin;
+        this.nextGaussian = stream.nextGaussian;
+        this.hasNextGaussian = stream.hasNextGaussian;
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.state = seed;
+        this.origin = seed;
+        this.hasNextGaussian = false;
+    }
+
+    public boolean hasDrawn() {
+        // Whether anything was drawn since the stream was seeded
+        return this.state != this.origin;
+    }
+
+    @Override
+    public long nextLong() {
+        return mix(this.state += GAMMA);
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public double nextGaussian() {
+        // Polar method, as in Random, with the second value of a pair kept here so that copyFrom() takes it along
+        if (this.hasNextGaussian) {
+            this.hasNextGaussian = false;
+            return this.nextGaussian;
+        }
+
+        double v1, v2, s;
+        do {
+            v1 = 2 * nextDouble() - 1;
+            v2 = 2 * nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        this.nextGaussian = v2 * multiplier;
+        this.hasNextGaussian = true;
+        return v1 * multiplier;
+    }
+}
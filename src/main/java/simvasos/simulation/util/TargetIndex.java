@@ -0,0 +1,197 @@
+package simvasos.simulation.util;
+
+import java.util.Arrays;
+
+/**
+ * Lowest-cost target among the cells not set in a BooleanGrid, where the cost of cell c from (x, y) is
+ * |x - cx| + |y - cy| - weight * values(c).
+ *
+ * The map is split into square tiles, each with the highest value among its remaining cells. A query visits the
+ * tiles in rings around the tile of (x, y), skips the tiles whose lower bound (distance to the tile minus the weighted
+ * highest value) cannot do better than the best cell found, and stops at the first ring that cannot do better. Ties go
+ * to the first cell in x-major order, as in a full scan.
+ *
+ * The index follows the grids it was built on: changed pages of the grid (and any write to the values) are picked up
+ * on the next query, so only the tiles of the cells that flipped are summarized again.
+ */
+public class TargetIndex {
+    private static final int TILE_SIZE = 8;
+
+    private final BooleanGrid visited;
+    private final IntGrid values;
+    private final int weight;
+
+    private final int xSize;
+    private final int ySize;
+    private final int nTileX;
+    private final int nTileY;
+
+    private final int[] tileMaxValue; // Integer.MIN_VALUE for a tile without remaining cells
+    private int maxValue = Integer.MIN_VALUE; // At least the highest value of every tile
+
+    private final long[][] syncedPages; // The pages of the grid as last seen, null for a page all clear
+    private final int[] syncedPageVersions;
+    private int syncedVersion;
+    private boolean built = false;
+
+    private final long[] dirty; // One bit per tile
+    private int[] dirtyTiles = new int[64];
+    private int nDirty = 0;
+
+    public TargetIndex(BooleanGrid visited, IntGrid values, int weight) {
+        if (visited.getXSize() != values.getXSize() || visited.getYSize() != values.getYSize())
+            throw new IllegalArgumentException("Grid size mismatch");
+
+        this.visited = visited;
+        this.values = values;
+        this.weight = weight;
+
+        this.xSize = visited.getXSize();
+        this.ySize = visited.getYSize();
+        this.nTileX = (this.xSize + TILE_SIZE - 1) / TILE_SIZE;
+        this.nTileY = (this.ySize + TILE_SIZE - 1) / TILE_SIZE;
+
+        int nTile = this.nTileX * this.nTileY;
+        this.tileMaxValue = new int[nTile];
+        this.syncedPages = new long[visited.getPageTotal()][];
+        this.syncedPageVersions = new int[visited.getPageTotal()];
+        this.dirty = new long[(nTile + 63) >>> 6];
+    }
+
+    public int findBest(int x, int y) {
+        // The cell (see BooleanGrid.getCell()) of the lowest-cost remaining target from (x, y), -1 if there is none
+        sync();
+
+        int tileX = Math.max(0, Math.min(this.nTileX - 1, Math.floorDiv(x, TILE_SIZE)));
+        int tileY = Math.max(0, Math.min(this.nTileY - 1, Math.floorDiv(y, TILE_SIZE)));
+        int nRing = Math.max(Math.max(tileX, this.nTileX - 1 - tileX), Math.max(tileY, this.nTileY - 1 - tileY)) + 1;
+
+        int[] best = {-1, Integer.MAX_VALUE}; // Cell and cost
+        for (int r = 0; r < nRing; r++) {
+            // Every tile of the ring is at least (r - 1) * TILE_SIZE + 1 away along one axis
+            if (r > 0 && (long) (r - 1) * TILE_SIZE + 1 - (long) this.weight * this.maxValue > best[1])
+                break; // Neither this ring nor the following ones can do better
+
+            int minTileX = Math.max(0, tileX - r), maxTileX = Math.min(this.nTileX - 1, tileX + r);
+            int minTileY = Math.max(0, tileY - r), maxTileY = Math.min(this.nTileY - 1, tileY + r);
+            for (int tx = minTileX; tx <= maxTileX; tx++)
+                if (Math.abs(tx - tileX) == r)
+                    for (int ty = minTileY; ty <= maxTileY; ty++)
+                        visitTile(tx * this.nTileY + ty, x, y, best);
+                else {
+                    if (tileY - r >= 0)
+                        visitTile(tx * this.nTileY + tileY - r, x, y, best);
+                    if (r > 0 && tileY + r < this.nTileY)
+                        visitTile(tx * this.nTileY + tileY + r, x, y, best);
+                }
+        }
+
+        return best[0];
+    }
+
+    private void visitTile(int tile, int x, int y, int[] best) {
+        if (this.tileMaxValue[tile] == Integer.MIN_VALUE || lowerBound(tile, x, y) > best[1])
+            return;
+
+        int minX = (tile / this.nTileY) * TILE_SIZE, maxX = Math.min(minX + TILE_SIZE, this.xSize);
+        int minY = (tile % this.nTileY) * TILE_SIZE, maxY = Math.min(minY + TILE_SIZE, this.ySize);
+
+        for (int cx = minX; cx < maxX; cx++)
+            for (int cy = minY; cy < maxY; cy++) {
+                int cell = cx * this.ySize + cy;
+                if (isVisited(cell))
+                    continue;
+
+                int cost = Math.abs(x - cx) + Math.abs(y - cy) - this.weight * this.values.getValueAt(cell);
+                if (cost < best[1] || (cost == best[1] && cell < best[0])) {
+                    best[1] = cost;
+                    best[0] = cell;
+                }
+            }
+    }
+
+    private int lowerBound(int tile, int x, int y) {
+        int minX = (tile / this.nTileY) * TILE_SIZE, maxX = Math.min(minX + TILE_SIZE, this.xSize) - 1;
+        int minY = (tile % this.nTileY) * TILE_SIZE, maxY = Math.min(minY + TILE_SIZE, this.ySize) - 1;
+
+        int distance = Math.max(0, Math.max(minX - x, x - maxX)) + Math.max(0, Math.max(minY - y, y - maxY));
+        return distance - this.weight * this.tileMaxValue[tile];
+    }
+
+    private boolean isVisited(int cell) {
+        long[] page = this.syncedPages[cell >>> (6 + BooleanGrid.PAGE_SHIFT)];
+        return page != null && (page[(cell >>> 6) & (BooleanGrid.PAGE_WORDS - 1)] & (1L << cell)) != 0;
+    }
+
+    private void sync() {
+        if (!this.built || this.syncedVersion != this.values.getVersion()) {
+            // Values changed (or first use): summarize every tile
+            for (int p = 0; p < this.syncedPages.length; p++)
+                syncPage(p);
+            for (int tile = 0; tile < this.tileMaxValue.length; tile++)
+                summarize(tile);
+
+            this.syncedVersion = this.values.getVersion();
+            this.built = true;
+            return;
+        }
+
+        for (int p = 0; p < this.syncedPages.length; p++) {
+            if (this.syncedPageVersions[p] == this.visited.getPageVersion(p))
+                continue;
+
+            long[] page = this.visited.getPage(p);
+            long[] synced = this.syncedPages[p];
+            int length = page != null ? page.length : synced != null ? synced.length : 0;
+            for (int i = 0; i < length; i++) {
+                long changed = (page == null ? 0 : page[i]) ^ (synced == null ? 0 : synced[i]);
+                while (changed != 0) {
+                    int cell = (((p << BooleanGrid.PAGE_SHIFT) + i) << 6) + Long.numberOfTrailingZeros(changed);
+                    changed &= changed - 1;
+
+                    int tile = ((cell / this.ySize) / TILE_SIZE) * this.nTileY + (cell % this.ySize) / TILE_SIZE;
+                    if ((this.dirty[tile >>> 6] & (1L << tile)) == 0) {
+                        this.dirty[tile >>> 6] |= 1L << tile;
+                        if (this.nDirty == this.dirtyTiles.length)
+                            this.dirtyTiles = Arrays.copyOf(this.dirtyTiles, 2 * this.nDirty);
+                        this.dirtyTiles[this.nDirty++] = tile;
+                    }
+                }
+            }
+            syncPage(p);
+        }
+
+        for (int i = 0; i < this.nDirty; i++) {
+            summarize(this.dirtyTiles[i]);
+            this.dirty[this.dirtyTiles[i] >>> 6] &= ~(1L << this.dirtyTiles[i]);
+        }
+        this.nDirty = 0;
+    }
+
+    private void syncPage(int p) {
+        long[] page = this.visited.getPage(p);
+        if (page == null)
+            this.syncedPages[p] = null;
+        else if (this.syncedPages[p] == null)
+            this.syncedPages[p] = page.clone();
+        else
+            System.arraycopy(page, 0, this.syncedPages[p], 0, page.length);
+        this.syncedPageVersions[p] = this.visited.getPageVersion(p);
+    }
+
+    private void summarize(int tile) {
+        int minX = (tile / this.nTileY) * TILE_SIZE, maxX = Math.min(minX + TILE_SIZE, this.xSize);
+        int minY = (tile % this.nTileY) * TILE_SIZE, maxY = Math.min(minY + TILE_SIZE, this.ySize);
+
+        int tileMax = Integer.MIN_VALUE;
+        for (int cx = minX; cx < maxX; cx++)
+            for (int cy = minY; cy < maxY; cy++) {
+                int cell = cx * this.ySize + cy;
+                if (!isVisited(cell))
+                    tileMax = Math.max(tileMax, this.values.getValueAt(cell));
+            }
+
+        this.tileMaxValue[tile] = tileMax;
+        this.maxValue = Math.max(this.maxValue, tileMax); // Only grows, so it stays a bound as cells come back
+    }
+}
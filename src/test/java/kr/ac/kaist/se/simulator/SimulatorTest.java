@@ -0,0 +1,99 @@
+package kr.ac.kaist.se.simulator;
+
+import mci.checker.Absence;
+import mci.checker.TransientStateProbability;
+import mci.checker.Universality;
+import mci.scenario.MCIScenario;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SimulatorTest {
+    private static final int NUM_SAMPLES = 5;
+
+    @Test
+    public void nextEventTest() throws Exception {
+        // The same seed gives the same runs when stepping every tick and when advancing to the next event
+        ArrayList<SIMResult> tickResults = run(true);
+        ArrayList<SIMResult> eventResults = run(false);
+
+        Absence absence = new Absence();
+        Universality universality = new Universality();
+        universality.init(new String[] {"MCI", "Universality", "0.9", "6000", "100", "0", "100"});
+        TransientStateProbability transientStateProbability = new TransientStateProbability();
+        transientStateProbability.init(3000, 78);
+
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            SIMResult tickResult = tickResults.get(i);
+            SIMResult eventResult = eventResults.get(i);
+
+            assertEquals(tickResult.getSoSBenefit(), eventResult.getSoSBenefit());
+            assertEquals(tickResult.getNumTicks(), eventResult.getNumTicks());
+            assertEquals(absence.evaluateSample(tickResult), absence.evaluateSample(eventResult));
+            assertEquals(universality.evaluateSample(tickResult), universality.evaluateSample(eventResult));
+            assertEquals(transientStateProbability.evaluateSample(tickResult), transientStateProbability.evaluateSample(eventResult));
+
+            // Each step records what a step of every tick records at its tick
+            assertSameSteps(tickResult.getTrace(), eventResult.getTrace(), "stat");
+            assertSameSteps(tickResult.getTrace(), eventResult.getTrace(), "position");
+            assertSameSteps(tickResult.getTrace(), eventResult.getTrace(), "SoS_level_benefit");
+        }
+
+        // Fewer steps, a trace of the steps only
+        assertTrue(eventResults.get(0).getTrace().size("SoS_level_benefit") < tickResults.get(0).getTrace().size("SoS_level_benefit"));
+    }
+
+    private static void assertSameSteps(SIMTrace tickTrace, SIMTrace eventTrace, String property) {
+        // Names differ from run to run (e.g., action names are made of hash codes), so the values of a tick are
+        // compared without them, as sorted lists
+        int j = 0;
+        for (int i = 0; i < eventTrace.size(property); ) {
+            int tick = eventTrace.getTick(property, i);
+            while (tickTrace.getTick(property, j) < tick)
+                j++;
+
+            ArrayList<String> tickValues = new ArrayList<>();
+            for (; j < tickTrace.size(property) && tickTrace.getTick(property, j) == tick; j++)
+                tickValues.add(valueOf(tickTrace, property, j));
+            ArrayList<String> eventValues = new ArrayList<>();
+            for (; i < eventTrace.size(property) && eventTrace.getTick(property, i) == tick; i++)
+                eventValues.add(valueOf(eventTrace, property, i));
+
+            Collections.sort(tickValues);
+            Collections.sort(eventValues);
+            assertEquals("Tick " + tick, tickValues, eventValues);
+        }
+    }
+
+    private static String valueOf(SIMTrace trace, String property, int i) {
+        // Statuses are recorded as symbols
+        return property.equals("stat") ? trace.getString(property, i) : Integer.toString(trace.getValue(property, i));
+    }
+
+    private ArrayList<SIMResult> run(boolean isTickByTick) {
+        // As Executor.Perform_Experiment() runs the samples of a scenario
+        NormalDistributor distributor = new NormalDistributor();
+        distributor.setNormalDistParams(1500, 400);
+        distributor.setSeed(1);
+
+        MCIScenario scenario = new MCIScenario(6000, 100);
+        Simulator sim = new Simulator(scenario);
+        sim.setSeed(1);
+        sim.setTraceProperties(new String[] {"stat", "position", "SoS_level_benefit"});
+        if (isTickByTick)
+            sim.setTickByTick();
+
+        ArrayList<SIMResult> results = new ArrayList<>();
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            scenario.init();
+            sim.setActionPlan(distributor.getDistributionArray(scenario.getActionList().size()));
+            sim.execute();
+            results.add(sim.getResult());
+            sim.reset();
+        }
+        return results;
+    }
+}
@@ -0,0 +1,70 @@
+package mci.checker;
+
+import kr.ac.kaist.se.mc.CheckerInterface;
+import kr.ac.kaist.se.simulator.NormalDistributor;
+import kr.ac.kaist.se.simulator.SIMResult;
+import kr.ac.kaist.se.simulator.Simulator;
+import mci.scenario.MCIScenario;
+import org.junit.Test;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class CheckerTest {
+    private static final int NUM_SAMPLES = 5;
+
+    @Test
+    public void debugTraceTest() throws Exception {
+        // A checker gives the same verdicts on the debug traces (DEBUG mode) as on the trace of its properties
+        Universality universality = new Universality();
+        universality.init(new String[] {"MCI", "Universality", "0.9", "6000", "100", "0", "100"});
+        TransientStateProbability transientStateProbability = new TransientStateProbability();
+        transientStateProbability.init(3000, 78);
+        CheckerInterface[] checkers = {new Absence(), universality, transientStateProbability};
+
+        for (CheckerInterface checker : checkers) {
+            ArrayList<SIMResult> traceResults = run(checker.getTraceProperties(), false);
+            ArrayList<SIMResult> debugResults = run(null, true);
+
+            for (int i = 0; i < NUM_SAMPLES; i++) {
+                assertNull(debugResults.get(i).getTrace());
+                assertEquals(checker.getName(), checker.evaluateSample(traceResults.get(i)), checker.evaluateSample(debugResults.get(i)));
+            }
+        }
+
+        // Neither
+        SIMResult result = run(null, false).get(0);
+        for (CheckerInterface checker : checkers)
+            try {
+                checker.evaluateSample(result);
+                fail(checker.getName());
+            } catch (IllegalStateException e) {
+                // Expected
+            }
+    }
+
+    private ArrayList<SIMResult> run(String[] traceProperties, boolean isDebug) {
+        NormalDistributor distributor = new NormalDistributor();
+        distributor.setNormalDistParams(1500, 400);
+        distributor.setSeed(1);
+
+        MCIScenario scenario = new MCIScenario(6000, 100);
+        Simulator sim = new Simulator(scenario);
+        sim.setSeed(1);
+        if (traceProperties != null)
+            sim.setTraceProperties(traceProperties);
+        if (isDebug)
+            sim.setDEBUG();
+
+        ArrayList<SIMResult> results = new ArrayList<>();
+        for (int i = 0; i < NUM_SAMPLES; i++) {
+            scenario.init();
+            sim.setActionPlan(distributor.getDistributionArray(scenario.getActionList().size()));
+            sim.execute();
+            results.add(sim.getResult());
+            sim.reset();
+        }
+        return results;
+    }
+}
@@ -0,0 +1,147 @@
+package simvasos.sa;
+
+import org.junit.Test;
+import simvasos.propcheck.PropertyChecker;
+import simvasos.propcheck.pattern.UniversalityChecker;
+import simvasos.sa.method.SPRT;
+import simvasos.scenario.mciresponse.MCIResponseScenario;
+import simvasos.scenario.mciresponse.PulloutChecker;
+import simvasos.scenario.robot.RobotScenario;
+import simvasos.simulation.Simulator;
+import simvasos.simulation.component.Scenario;
+import simvasos.simulation.component.World;
+import simvasos.simulation.util.RandomStream;
+
+import static org.junit.Assert.*;
+
+public class ParallelSamplerTest {
+    long masterSeed = 42;
+    int endTick = 11;
+
+    @Test
+    public void sameDecisionAsSerialTest() throws Exception {
+        Scenario scenario = new RobotScenario(3);
+        World world = scenario.getWorld();
+        PropertyChecker checker = scenario.getChecker();
+
+        for (int i = 1; i < 100; i += 7) {
+            ParallelSampler sampler = new ParallelSampler(() -> new RobotScenario(3), 4, this.masterSeed);
+            SPRT parallel = new SPRT();
+            parallel.reset(0.05, 0.05, 0.01, 0.01 * i);
+            sampler.run(parallel, this.endTick);
+            sampler.shutdown();
+
+            // Serial reference consuming the same seed sequence
+            SPRT serial = new SPRT();
+            serial.reset(0.05, 0.05, 0.01, 0.01 * i);
+            for (long j = 0; serial.isSampleNeeded(); j++) {
+                world.setSeed(RandomStream.derive(this.masterSeed, j));
+                serial.addSample(checker.isSatisfied(Simulator.execute(world, this.endTick)));
+            }
+
+            assertEquals(serial.getSampleSize(), parallel.getSampleSize());
+            assertEquals(serial.getDecision(), parallel.getDecision());
+        }
+    }
+
+    @Test
+    public void sameDecisionAsSerialBranchTest() throws Exception {
+        int branchTick = 1; // A single robot draws nothing in its first tick, in which it grabs its token
+        Scenario scenario = new RobotScenario(1);
+        World world = scenario.getWorld();
+        PropertyChecker checker = scenario.getChecker();
+
+        for (int i = 1; i < 100; i += 7) {
+            ParallelSampler sampler = new ParallelSampler(() -> new RobotScenario(1), 4, this.masterSeed);
+            SPRT parallel = new SPRT();
+            parallel.reset(0.05, 0.05, 0.01, 0.01 * i);
+            assertEquals(PropertyChecker.Verdict.UNDECIDED, sampler.run(parallel, branchTick, this.endTick));
+            sampler.shutdown();
+
+            // Serial reference: the prefix once, then a fork of it per sample
+            world.setSeed(this.masterSeed);
+            assertEquals(PropertyChecker.Verdict.UNDECIDED, Simulator.check(world, branchTick, checker));
+            assertFalse(world.hasDrawn());
+            World checkpoint = world.checkpoint();
+
+            SPRT serial = new SPRT();
+            serial.reset(0.05, 0.05, 0.01, 0.01 * i);
+            for (long j = 0; serial.isSampleNeeded(); j++)
+                serial.addSample(Simulator.resume(checkpoint.fork(RandomStream.derive(this.masterSeed, j)), this.endTick, checker));
+
+            assertEquals(serial.getSampleSize(), parallel.getSampleSize());
+            assertEquals(serial.getDecision(), parallel.getDecision());
+        }
+    }
+
+    @Test
+    public void mciResponseTest() throws Exception {
+        // A worker runs all its samples on one world, which must then run each sample as a world of its own would
+        int endTick = 80;
+
+        for (double theta : new double[] {0.2, 0.7}) {
+            ParallelSampler sampler = new ParallelSampler(() -> new PulloutScenario(), 4, this.masterSeed);
+            SPRT parallel = new SPRT();
+            parallel.reset(0.05, 0.05, 0.01, theta);
+            sampler.run(parallel, endTick);
+            sampler.shutdown();
+
+            // Serial reference on a new world per sample
+            SPRT serial = new SPRT();
+            serial.reset(0.05, 0.05, 0.01, theta);
+            for (long j = 0; serial.isSampleNeeded(); j++) {
+                Scenario scenario = new PulloutScenario();
+                World world = scenario.getWorld();
+                world.setSeed(RandomStream.derive(this.masterSeed, j));
+                serial.addSample(Simulator.execute(world, endTick, scenario.getChecker()));
+            }
+
+            assertEquals(serial.getSampleSize(), parallel.getSampleSize());
+            assertEquals(serial.getDecision(), parallel.getDecision());
+        }
+    }
+
+    private static class PulloutScenario extends Scenario {
+        // Six patients pulled out within 80 ticks in a bit less than half of the runs
+        public PulloutScenario() {
+            this.world = new MCIResponseScenario(MCIResponseScenario.SoSType.Directed, 100, 4, 1, 1).getWorld();
+            this.checker = new PulloutChecker(6);
+        }
+    }
+
+    @Test
+    public void drawingPrefixTest() throws Exception {
+        // Robots draw whether to drop their tokens, and the schedule of three is shuffled: samples would share draws
+        ParallelSampler sampler = new ParallelSampler(() -> new RobotScenario(3), 2, this.masterSeed);
+        SPRT sprt = new SPRT();
+        sprt.reset(0.05, 0.05, 0.01, 0.5);
+        try {
+            sampler.run(sprt, 4, this.endTick);
+            fail("Branched from a prefix that draws");
+        } catch (IllegalArgumentException e) {
+            assertEquals(0, sprt.getSampleSize());
+        } finally {
+            sampler.shutdown();
+        }
+    }
+
+    @Test
+    public void decidedPrefixTest() throws Exception {
+        // A prefix that draws nothing and decides the property decides it for every run, without any sample
+        ParallelSampler sampler = new ParallelSampler(() -> new NeverScenario(), 2, this.masterSeed);
+        SPRT sprt = new SPRT();
+        sprt.reset(0.05, 0.05, 0.01, 0.5);
+
+        assertEquals(PropertyChecker.Verdict.VIOLATED, sampler.run(sprt, 1, this.endTick));
+        assertEquals(0, sprt.getSampleSize());
+        sampler.shutdown();
+    }
+
+    private static class NeverScenario extends Scenario {
+        // Nothing always holds, so the first tick violates the property
+        public NeverScenario() {
+            this.world = new RobotScenario(1).getWorld();
+            this.checker = new UniversalityChecker();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package simvasos.sa.method;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogSPRTTest {
+    @Test
+    public void sameDecisionAsSPRTTest() throws Exception {
+        Random random = new Random(1);
+
+        for (int i = 1; i < 100; i++) {
+            double theta = 0.01 * i;
+
+            for (int run = 0; run < 20; run++) {
+                double trueProbability = random.nextDouble();
+
+                SPRT sprt = new SPRT();
+                LogSPRT logSprt = new LogSPRT();
+                sprt.reset(0.05, 0.05, 0.01, theta);
+                logSprt.reset(0.05, 0.05, 0.01, theta);
+
+                while (sprt.isSampleNeeded()) {
+                    assertEquals(true, logSprt.isSampleNeeded());
+
+                    boolean sample = random.nextDouble() < trueProbability;
+                    sprt.addSample(sample);
+                    logSprt.addSample(sample);
+                }
+
+                assertEquals(false, logSprt.isSampleNeeded());
+                assertEquals(sprt.getSampleSize(), logSprt.getSampleSize());
+                assertEquals(sprt.getDecision(), logSprt.getDecision());
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package simvasos.sa.method;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MultiHypothesisSPRTTest {
+    @Test
+    public void sameDecisionAsSeparateTestsTest() throws Exception {
+        double[] thetas = new double[99];
+        for (int i = 1; i < 100; i++)
+            thetas[i - 1] = 0.01 * i;
+
+        for (int run = 0; run < 10; run++) {
+            double trueProbability = 0.1 * run + 0.05;
+
+            // One shared stream of samples
+            Random random = new Random(run);
+            boolean[] samples = new boolean[100000];
+            for (int i = 0; i < samples.length; i++)
+                samples[i] = random.nextDouble() < trueProbability;
+
+            MultiHypothesisSPRT multi = new MultiHypothesisSPRT();
+            multi.reset(0.05, 0.05, 0.01, thetas);
+            int n = 0;
+            while (multi.isSampleNeeded())
+                multi.addSample(samples[n++]);
+
+            for (int i = 0; i < thetas.length; i++) {
+                LogSPRT single = new LogSPRT();
+                single.reset(0.05, 0.05, 0.01, thetas[i]);
+                int m = 0;
+                while (single.isSampleNeeded())
+                    single.addSample(samples[m++]);
+
+                assertTrue(multi.isDecided(i));
+                assertEquals(single.getSampleSize(), multi.getSampleSize(i));
+                assertEquals(single.getDecision(), multi.getDecision(i));
+                assertTrue(multi.getSampleSize(i) <= multi.getSampleSize());
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package simvasos.simulation;
+
+import org.junit.Test;
+import simvasos.propcheck.pattern.ExistenceChecker;
+import simvasos.scenario.mciresponse.MCIResponseScenario;
+import simvasos.scenario.robot.RobotScenario;
+import simvasos.simulation.analysis.Snapshot;
+import simvasos.simulation.analysis.Trace;
+import simvasos.simulation.analysis.TraceSchema;
+import simvasos.simulation.component.Action;
+import simvasos.simulation.component.Agent;
+import simvasos.simulation.component.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class EventSimulatorTest {
+    @Test
+    public void sameAsTickTest() throws Exception {
+        // Every action of these scenarios lasts one tick, so every agent is due on every tick
+        World robotWorld = new RobotScenario(3).getWorld();
+        for (int seed = 1; seed <= 20; seed++) {
+            robotWorld.setSeed(seed);
+            assertSameTrace(Simulator.record(robotWorld, 40), EventSimulator.record(robotWorld, 40));
+        }
+
+        // Each simulator on a world of its own, so that the comparison does not depend on how a world resets
+        World mciResponseWorld = new MCIResponseScenario(MCIResponseScenario.SoSType.Acknowledged, 100, 2, 0, 1).getWorld();
+        mciResponseWorld.setSeed(1);
+        World eventMciResponseWorld = new MCIResponseScenario(MCIResponseScenario.SoSType.Acknowledged, 100, 2, 0, 1).getWorld();
+        eventMciResponseWorld.setSeed(1);
+        assertSameTrace(Simulator.record(mciResponseWorld, 100), EventSimulator.record(eventMciResponseWorld, 100));
+
+        robotWorld.setSeed(1);
+        ArrayList<Snapshot> simulationLog = EventSimulator.execute(robotWorld, 11);
+        assertEquals(12, simulationLog.size());
+        assertEquals(11, (int) simulationLog.get(11).getProperties().get(0).value); // World time
+    }
+
+    private void assertSameTrace(Trace expected, Trace actual) {
+        TraceSchema schema = expected.getSchema();
+
+        assertEquals(expected.size(), actual.size());
+        for (int tick = 0; tick < expected.size(); tick++)
+            for (int id = 0; id < schema.size(); id++)
+                assertEquals(expected.getValue(id, tick), actual.getValue(id, tick));
+    }
+
+    @Test
+    public void sparseTest() throws Exception {
+        SleepingWorld world = new SleepingWorld();
+        world.addAgent(new SleepingAgent(world, "A", 1000));
+        world.addAgent(new SleepingAgent(world, "B", 2500));
+
+        final int[] nCheck = {0};
+        ExistenceChecker checker = new ExistenceChecker() {
+            @Override
+            protected boolean evaluate(Trace trace, int tick) {
+                nCheck[0]++;
+                return false;
+            }
+
+            @Override
+            public boolean needsEveryTick() {
+                return false;
+            }
+        };
+
+        assertFalse(EventSimulator.execute(world, 1000000, checker));
+        assertEquals(1000000, world.getTime());
+
+        // Agents are stepped when their actions are completed, the checker at every event time
+        assertEquals(1000, ((SleepingAgent) world.getAgents().get(0)).nStep);
+        assertEquals(400, ((SleepingAgent) world.getAgents().get(1)).nStep);
+        assertEquals(1 + 1000 + 200, nCheck[0]); // Initial snapshot, then one per distinct event time
+    }
+
+    private static class SleepingWorld extends World {
+        public SleepingWorld() {
+            super(1);
+        }
+
+        @Override
+        protected World copy(long seed) {
+            throw new UnsupportedOperationException("SleepingWorld is not forked");
+        }
+
+        @Override
+        public HashMap<String, Object> getResources() {
+            return null;
+        }
+
+        @Override
+        public ArrayList<Action> generateExogenousActions() {
+            return new ArrayList<Action>();
+        }
+
+        @Override
+        public int nextExogenousEventTime(int time) {
+            return Integer.MAX_VALUE;
+        }
+    }
+
+    private static class SleepingAgent extends Agent {
+        public int nStep = 0;
+        private final Action sleep;
+
+        public SleepingAgent(World world, String name, int duration) {
+            super(world);
+            this.name = name;
+            this.sleep = Action.getNullAction(duration, name + ": Sleep");
+        }
+
+        @Override
+        public Action step() {
+            this.nStep++;
+            return this.sleep;
+        }
+
+        @Override
+        public Agent fork(World world) {
+            throw new UnsupportedOperationException("SleepingAgent is not forked");
+        }
+
+        @Override
+        public void reset() {
+            this.nStep = 0;
+        }
+
+        @Override
+        public String getName() {
+            return this.name;
+        }
+
+        @Override
+        public String getSymbol() {
+            return "S";
+        }
+
+        @Override
+        public HashMap<String, Object> getProperties() {
+            return new HashMap<String, Object>();
+        }
+    }
+}
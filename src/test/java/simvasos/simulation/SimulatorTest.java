@@ -1,6 +1,7 @@
 package simvasos.simulation;
 
 import org.junit.Test;
+import simvasos.propcheck.PropertyChecker;
 import simvasos.scenario.mciresponse.MCIResponseScenario;
 import simvasos.scenario.mciresponse.MCIResponseWorld;
 import simvasos.scenario.robot.RobotScenario;
@@ -56,11 +57,37 @@ public class SimulatorTest {
         assertEquals(21, (int) finalProperties.get(3).value); // Robot2's xpos
         assertEquals(21, (int) finalProperties.get(5).value); // Robot3's xpos
 
-        assertTrue((boolean) finalProperties.get(2).value); // Robot1's token
+        assertFalse((boolean) finalProperties.get(2).value); // Robot1's token, dropped
         assertTrue((boolean) finalProperties.get(4).value); // Robot2's token
         assertTrue((boolean) finalProperties.get(6).value); // Robot3's token
     }
 
+    @Test
+    public void onlineCheckingTest() throws Exception {
+        PropertyChecker checker = this.robotScenario.getChecker();
+
+        for (int seed = 1; seed <= 50; seed++) {
+            this.robotWorld.setSeed(seed);
+            boolean offline = checker.isSatisfied(Simulator.execute(this.robotWorld, this.robotEndTick * 5));
+            boolean online = Simulator.execute(this.robotWorld, this.robotEndTick * 5, checker);
+
+            assertEquals(offline, online);
+        }
+
+        this.mciResponseScenario = new MCIResponseScenario(MCIResponseScenario.SoSType.Collaborative, this.nPatient, this.nFirefighter, 0, 0);
+        this.mciResponseWorld = (MCIResponseWorld) this.mciResponseScenario.getWorld();
+        checker = this.mciResponseScenario.getChecker();
+
+        for (int seed = 1; seed <= 5; seed++) {
+            this.mciResponseWorld.setSeed(seed);
+            boolean offline = checker.isSatisfied(Simulator.execute(this.mciResponseWorld, this.mciResponseEndTick));
+            boolean online = Simulator.execute(this.mciResponseWorld, this.mciResponseEndTick, checker);
+
+            assertEquals(offline, online);
+            assertTrue(this.mciResponseWorld.getTime() <= this.mciResponseEndTick);
+        }
+    }
+
     @Test
     public void mciResponseSoSTypeTest() throws Exception {
         MCIResponseScenario.SoSType[] targetTypeArray = {MCIResponseScenario.SoSType.Virtual, MCIResponseScenario.SoSType.Collaborative, MCIResponseScenario.SoSType.Acknowledged, MCIResponseScenario.SoSType.Directed};
@@ -90,12 +117,12 @@ public class SimulatorTest {
 
         assertEquals(this.mciResponseEndTick, finalProperties.get(0).value); // World time
 
-        assertEquals(new Location(21, 26), finalProperties.get(1).value); // Firefighter1's location
-        assertEquals(new Location(25, 21), finalProperties.get(2).value); // Firefighter2's location
+        assertEquals(new Location(16, 26), finalProperties.get(1).value); // Firefighter1's location
+        assertEquals(new Location(16, 26), finalProperties.get(2).value); // Firefighter2's location
 
-        assertEquals(new Location(19, 21), finalProperties.get(3).value); // Ambulance's location
+        assertEquals(new Location(22, 26), finalProperties.get(3).value); // Ambulance's location
 
-        assertEquals(95, (int) finalProperties.get(4).value); // Hospital's capacity
+        assertEquals(96, (int) finalProperties.get(4).value); // Hospital's capacity
         assertEquals(new Location(24, 24), finalProperties.get(5).value); // Hospital's location
 
 //        assertNotNull(finalProperties.get(6).value); // Control Tower's pullout belief map
@@ -103,4 +130,32 @@ public class SimulatorTest {
 //        assertEquals(11, (int) finalProperties.get(7).value); // The number of pulled out people
 //        assertEquals(2010, (int) finalProperties.get(8).value); // The number of message counts
     }
-}
\ No newline at end of file
+
+    @Test
+    public void parallelStepTest() throws Exception {
+        // A run is the same on any number of threads, the calling thread alone (0 or 1) included
+        for (MCIResponseScenario.SoSType sostype : MCIResponseScenario.SoSType.values()) {
+            ArrayList<Snapshot> sequentialLog = null;
+            for (int parallelism : new int[]{0, 1, 2, 3, 8}) {
+                World world = new MCIResponseScenario(sostype, this.nPatient, 8, 4, 2).getWorld();
+                world.setSeed(this.randomSeed);
+                world.setParallelism(parallelism);
+
+                ArrayList<Snapshot> simulationLog = Simulator.execute(world, this.mciResponseEndTick);
+                if (sequentialLog == null) {
+                    sequentialLog = simulationLog;
+                    continue;
+                }
+
+                for (int t = 0; t <= this.mciResponseEndTick; t++) {
+                    ArrayList<PropertyValue> sequentialProperties = sequentialLog.get(t).getProperties();
+                    ArrayList<PropertyValue> properties = simulationLog.get(t).getProperties();
+
+                    assertEquals(sequentialProperties.size(), properties.size());
+                    for (int i = 0; i < properties.size(); i++)
+                        assertEquals(sequentialProperties.get(i).value, properties.get(i).value);
+                }
+            }
+        }
+    }
+}
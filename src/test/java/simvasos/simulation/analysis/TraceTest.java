@@ -0,0 +1,89 @@
+package simvasos.simulation.analysis;
+
+import org.junit.Test;
+import simvasos.scenario.mciresponse.MCIResponseScenario;
+import simvasos.scenario.robot.RobotScenario;
+import simvasos.simulation.Simulator;
+import simvasos.simulation.component.World;
+import simvasos.simulation.util.BooleanGrid;
+
+import java.util.ArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class TraceTest {
+    @Test
+    public void recordTest() throws Exception {
+        // Each run on a world of its own, so that the comparison does not depend on how a world resets
+        assertSameAsSnapshots(() -> new RobotScenario(3).getWorld(), 30);
+        assertSameAsSnapshots(() -> new MCIResponseScenario(MCIResponseScenario.SoSType.Acknowledged, 100, 2, 0, 1).getWorld(), 100);
+    }
+
+    private void assertSameAsSnapshots(Supplier<World> worlds, int endTick) {
+        World snapshotWorld = worlds.get();
+        snapshotWorld.setSeed(1);
+        ArrayList<Snapshot> simulationLog = Simulator.execute(snapshotWorld, endTick);
+
+        World traceWorld = worlds.get();
+        traceWorld.setSeed(1);
+        Trace trace = Simulator.record(traceWorld, endTick);
+        TraceSchema schema = trace.getSchema();
+
+        assertEquals(simulationLog.size(), trace.size());
+        for (int tick = 0; tick < trace.size(); tick++) {
+            ArrayList<PropertyValue> properties = simulationLog.get(tick).getProperties();
+
+            assertEquals(properties.size(), schema.size());
+            for (PropertyValue pv : properties) {
+                int id = schema.getId(pv.subjectName, pv.propertyName);
+
+                assertTrue(id >= 0);
+                assertEquals(pv.value, trace.getValue(id, tick));
+            }
+        }
+    }
+
+    @Test
+    public void objectHistoryTest() throws Exception {
+        World world = new MCIResponseScenario(MCIResponseScenario.SoSType.Directed, 100, 4, 1, 1).getWorld();
+        world.setSeed(1);
+        Trace trace = Simulator.record(world, 100);
+        int id = trace.getSchema().getId("ControlTower", "PulloutBeliefMap");
+
+        // Every tick keeps the belief of its own time
+        BooleanGrid first = (BooleanGrid) trace.getValue(id, 0);
+        BooleanGrid last = (BooleanGrid) trace.getValue(id, 100);
+        assertNotSame(first, last);
+        assertEquals(0, first.cardinality());
+        assertTrue(last.cardinality() > 0);
+    }
+
+    @Test
+    public void windowTest() throws Exception {
+        TraceSchema schema = new TraceSchema();
+        int timeId = schema.register(null, "Time", TraceSchema.Type.INT);
+        int locationId = schema.register(null, "Location", TraceSchema.Type.LOCATION);
+
+        Trace trace = new Trace(schema, 2);
+        for (int t = 0; t < 100; t++) {
+            int tick = trace.newTick();
+            trace.setInt(timeId, t);
+            trace.setLocation(locationId, t, -t);
+
+            assertEquals(t, tick);
+        }
+
+        assertEquals(100, trace.size());
+        assertEquals(98, trace.getInt(timeId, 98));
+        assertEquals(99, trace.getLocationX(locationId, 99));
+        assertEquals(-99, trace.getLocationY(locationId, 99));
+
+        try {
+            trace.getInt(timeId, 97);
+            fail("Ticks out of the window are not kept");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+    }
+}
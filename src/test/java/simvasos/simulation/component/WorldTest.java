@@ -1,14 +1,26 @@
 package simvasos.simulation.component;
 
 import org.junit.Test;
+import simvasos.modelparsing.modeling.ABCPlus.ABCPlusCS;
+import simvasos.scenario.mciresponse.MCIResponseScenario;
+import simvasos.scenario.mciresponse.MCIResponseWorld;
+import simvasos.scenario.mciresponse.MessageKeys;
+import simvasos.scenario.mciresponse.Patient;
+import simvasos.scenario.mciresponse.entity.ControlTower;
+import simvasos.scenario.mciresponse.entity.FireFighter;
 import simvasos.scenario.robot.Robot;
 import simvasos.scenario.robot.RobotScenario;
 import simvasos.scenario.robot.RobotWorld;
 import simvasos.simulation.Simulator;
 import simvasos.simulation.analysis.PropertyValue;
 import simvasos.simulation.analysis.Snapshot;
+import simvasos.simulation.util.IntGrid;
+import simvasos.simulation.util.Location;
+import simvasos.simulation.util.Maptrix;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -48,4 +60,383 @@ public class WorldTest {
         assertTrue((boolean) initialProperties.get(4).value); // Robot2's token
         assertTrue((boolean) initialProperties.get(6).value); // Robot3's token
     }
-}
\ No newline at end of file
+
+    @Test
+    public void repeatedExecutionTest() throws Exception {
+        int endTick = 300;
+
+        ArrayList<Scenario> scenarios = new ArrayList<Scenario>();
+        scenarios.add(new RobotScenario(3));
+        for (MCIResponseScenario.SoSType type : MCIResponseScenario.SoSType.values())
+            scenarios.add(new MCIResponseScenario(type, 100, 8, 4, 2));
+
+        for (Scenario scenario : scenarios) {
+            World world = scenario.getWorld();
+            world.setSeed(3);
+
+            // Each execution resets the world, including the CSs' messages, action lists and dispatch order
+            ArrayList<Snapshot> firstLog = Simulator.execute(world, endTick);
+            ArrayList<Snapshot> secondLog = Simulator.execute(world, endTick);
+
+            assertEquals(firstLog.size(), secondLog.size());
+            for (int t = 0; t < firstLog.size(); t++) {
+                ArrayList<PropertyValue> firstProperties = firstLog.get(t).getProperties();
+                ArrayList<PropertyValue> secondProperties = secondLog.get(t).getProperties();
+
+                assertEquals(firstProperties.size(), secondProperties.size());
+                for (int i = 0; i < firstProperties.size(); i++)
+                    assertEquals(firstProperties.get(i).value, secondProperties.get(i).value);
+            }
+        }
+    }
+
+    @Test
+    public void forkTest() throws Exception {
+        int endTick = 100;
+
+        Scenario scenario = new MCIResponseScenario(MCIResponseScenario.SoSType.Acknowledged, 100, 3, 0, 1);
+        World world = scenario.getWorld();
+        world.setSeed(1);
+
+        World forked = world.fork(1);
+
+        assertNotSame(world, forked);
+        assertEquals(world.getAgents().size(), forked.getAgents().size());
+        for (int i = 0; i < world.getAgents().size(); i++) {
+            assertNotSame(world.getAgents().get(i), forked.getAgents().get(i));
+            assertEquals(world.getAgents().get(i).getName(), forked.getAgents().get(i).getName());
+        }
+
+        ArrayList<Snapshot> originalLog = Simulator.execute(world, endTick);
+        ArrayList<Snapshot> forkedLog = Simulator.execute(forked, endTick);
+
+        // Same seed, same configuration: the forked world replays the original run
+        for (int t = 0; t <= endTick; t++) {
+            ArrayList<PropertyValue> originalProperties = originalLog.get(t).getProperties();
+            ArrayList<PropertyValue> forkedProperties = forkedLog.get(t).getProperties();
+
+            assertEquals(originalProperties.size(), forkedProperties.size());
+            for (int i = 0; i < originalProperties.size(); i++)
+                if (!(originalProperties.get(i).value instanceof Maptrix))
+                    assertEquals(originalProperties.get(i).value, forkedProperties.get(i).value);
+        }
+    }
+
+    @Test
+    public void forkReferencesTest() throws Exception {
+        int branchTick = 50;
+        int endTick = 150;
+
+        // A control tower added before the fire fighters it directs; its checkpoint directs their checkpoints
+        ArrayList<ArrayList<Snapshot>> logs = new ArrayList<ArrayList<Snapshot>>();
+        for (boolean checkpoint : new boolean[] {false, true}) {
+            MCIResponseWorld world = new MCIResponseWorld(MCIResponseScenario.SoSType.Directed, 100);
+            world.addAgent(new ControlTower(world, "ControlTower"));
+            for (int i = 1; i <= 3; i++)
+                world.addAgent(new FireFighter(world, "FireFighter" + i));
+            world.setSeed(1);
+            world.reset();
+            Simulator.advance(world, branchTick);
+
+            logs.add(Simulator.resume(checkpoint ? world.checkpoint() : world, endTick));
+        }
+
+        assertEquals(logs.get(0).size(), logs.get(1).size());
+        for (int t = 0; t < logs.get(0).size(); t++) {
+            ArrayList<PropertyValue> properties = logs.get(0).get(t).getProperties();
+            ArrayList<PropertyValue> checkpointProperties = logs.get(1).get(t).getProperties();
+
+            assertEquals(properties.size(), checkpointProperties.size());
+            for (int i = 0; i < properties.size(); i++)
+                assertEquals(properties.get(i).value, checkpointProperties.get(i).value);
+        }
+    }
+
+    @Test
+    public void forkMidRunTest() throws Exception {
+        int forkTick = 50;
+        int endTick = 150;
+
+        for (int parallelism : new int[] {0, 2}) {
+            ArrayList<ArrayList<Snapshot>> logs = new ArrayList<ArrayList<Snapshot>>();
+            for (boolean fork : new boolean[] {false, true}) {
+                World world = new MCIResponseScenario(MCIResponseScenario.SoSType.Directed, 100, 8, 4, 2).getWorld();
+                world.setSeed(1);
+                world.setParallelism(parallelism);
+                world.reset();
+                Simulator.advance(world, forkTick);
+
+                if (fork) {
+                    World first = world.fork();
+                    World second = world.fork();
+                    assertNotSame(first, second);
+                }
+                logs.add(Simulator.resume(world, endTick));
+            }
+
+            // A world goes on the same whether or not it was forked
+            assertEquals(logs.get(0).size(), logs.get(1).size());
+            for (int t = 0; t < logs.get(0).size(); t++) {
+                ArrayList<PropertyValue> properties = logs.get(0).get(t).getProperties();
+                ArrayList<PropertyValue> forkedProperties = logs.get(1).get(t).getProperties();
+
+                assertEquals(properties.size(), forkedProperties.size());
+                for (int i = 0; i < properties.size(); i++)
+                    assertEquals(properties.get(i).value, forkedProperties.get(i).value);
+            }
+        }
+    }
+
+    @Test
+    public void checkpointTest() throws Exception {
+        int branchTick = 60;
+        int endTick = 200;
+
+        for (MCIResponseScenario.SoSType type : MCIResponseScenario.SoSType.values())
+            for (int parallelism : new int[] {0, 2}) {
+                World world = new MCIResponseScenario(type, 100, 8, 4, 2).getWorld();
+                world.setSeed(1);
+                world.setParallelism(parallelism);
+                world.reset();
+                Simulator.advance(world, branchTick);
+
+                // A checkpoint goes on exactly as the world it is taken from
+                World checkpoint = world.checkpoint();
+                ArrayList<Snapshot> originalLog = Simulator.resume(world, endTick);
+                ArrayList<Snapshot> checkpointLog = Simulator.resume(checkpoint, endTick);
+
+                assertEquals(endTick - branchTick + 1, checkpointLog.size());
+                for (int t = 0; t < originalLog.size(); t++) {
+                    ArrayList<PropertyValue> originalProperties = originalLog.get(t).getProperties();
+                    ArrayList<PropertyValue> checkpointProperties = checkpointLog.get(t).getProperties();
+
+                    assertEquals(originalProperties.size(), checkpointProperties.size());
+                    for (int i = 0; i < originalProperties.size(); i++)
+                        assertEquals(originalProperties.get(i).value, checkpointProperties.get(i).value);
+                }
+            }
+    }
+
+    @Test
+    public void hasDrawnTest() throws Exception {
+        for (int parallelism : new int[] {0, 2}) {
+            World world = new RobotScenario(3).getWorld();
+            world.setSeed(1);
+            world.setParallelism(parallelism);
+            world.reset();
+            assertFalse(world.hasDrawn());
+
+            Simulator.advance(world, 5); // Robots draw whether to drop their tokens
+            assertTrue(world.hasDrawn());
+            assertTrue(world.checkpoint().hasDrawn());
+            assertFalse(world.fork().hasDrawn());
+
+            world.reset();
+            assertFalse(world.hasDrawn());
+        }
+    }
+
+    @Test
+    public void sendMessageTest() throws Exception {
+        MCIResponseWorld world = (MCIResponseWorld) new MCIResponseScenario(MCIResponseScenario.SoSType.Acknowledged, 100, 4, 2, 1).getWorld();
+        world.setSeed(1);
+        world.reset();
+
+        Location center = new Location(world.getMapX() / 2, world.getMapY() / 2);
+
+        assertEquals(4, send(world, "ControlTower", "FireFighter", null));
+        assertEquals(3, send(world, "FireFighter1", "FireFighter", null)); // Not to the sender itself
+        assertEquals(1, send(world, "ControlTower", "FireFighter1", null));
+        assertEquals(1, send(world, "Ambulance1", "Hospital", center));
+        assertEquals(0, send(world, "Ambulance1", "Hospital", new Location(0, 0)));
+        assertEquals(4, send(world, "ControlTower", "FireFighter", new Location(0, 0))); // Fire fighters start at (0, 0)
+        assertEquals(2, send(world, "Ambulance1", "", center)); // The other ambulance and the hospital
+
+        // Once the agents moved, located messages reach the agents at their new locations
+        Simulator.advance(world, 30);
+        for (int x = 0; x < world.getMapX(); x++)
+            for (int y = 0; y < world.getMapY(); y++) {
+                Location location = new Location(x, y);
+
+                int expected = 0;
+                for (Agent agent : world.getAgents())
+                    if (location.equals(agent.getProperties().get("Location")) && !agent.getName().equals("Ambulance1"))
+                        expected++;
+
+                assertEquals(expected, send(world, "Ambulance1", "", location));
+            }
+
+        for (Agent agent : world.getAgents())
+            ((ABCPlusCS) agent).clearMessages();
+    }
+
+    @Test
+    public void mapSizeTest() throws Exception {
+        int endTick = 100;
+        int[][] mapSizes = {{49, 49}, {120, 80}};
+
+        // Worlds of different map sizes, run at the same time, run as they do alone
+        ArrayList<ArrayList<Snapshot>> logs = new ArrayList<ArrayList<Snapshot>>();
+        ArrayList<Thread> threads = new ArrayList<Thread>();
+        for (int[] mapSize : mapSizes) {
+            logs.add(null);
+            int i = logs.size() - 1;
+            threads.add(new Thread(() -> logs.set(i, Simulator.execute(mapSizeWorld(mapSize[0], mapSize[1]), endTick))));
+        }
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+
+        for (int i = 0; i < mapSizes.length; i++) {
+            MCIResponseWorld world = mapSizeWorld(mapSizes[i][0], mapSizes[i][1]);
+            ArrayList<Snapshot> log = Simulator.execute(world, endTick);
+
+            for (int t = 0; t <= endTick; t++) {
+                ArrayList<PropertyValue> properties = log.get(t).getProperties();
+                ArrayList<PropertyValue> concurrentProperties = logs.get(i).get(t).getProperties();
+
+                assertEquals(properties.size(), concurrentProperties.size());
+                for (int j = 0; j < properties.size(); j++) {
+                    assertEquals(properties.get(j).value, concurrentProperties.get(j).value);
+                    if (properties.get(j).value instanceof Location)
+                        assertTrue(world.checkValidLocation((Location) properties.get(j).value));
+                }
+            }
+
+            for (Patient patient : world.patients)
+                assertTrue(world.checkValidLocation(patient.getLocation()));
+
+            // The expected patients peak where the patients are placed, on each axis of a non-square map too
+            IntGrid expectedPatientsMap = world.expectedPatientsMap;
+            int[] xSums = new int[mapSizes[i][0]];
+            int[] ySums = new int[mapSizes[i][1]];
+            for (int x = 0; x < xSums.length; x++)
+                for (int y = 0; y < ySums.length; y++) {
+                    xSums[x] += expectedPatientsMap.getValue(x, y);
+                    ySums[y] += expectedPatientsMap.getValue(x, y);
+                }
+            assertEquals(mapSizes[i][0] / 2, indexOfMax(xSums), 1);
+            assertEquals(mapSizes[i][1] / 2, indexOfMax(ySums), 1);
+        }
+    }
+
+    private static int indexOfMax(int[] values) {
+        int index = 0;
+        for (int i = 1; i < values.length; i++)
+            if (values[i] > values[index])
+                index = i;
+        return index;
+    }
+
+    @Test
+    public void mapSizeLimitTest() throws Exception {
+        // Patient locations keep a coordinate in 16 bits
+        MCIResponseWorld world = mapSizeWorld(32768, 2);
+        world.reset();
+
+        Patient patient = world.patients.get(0);
+        for (Location location : new Location[] {new Location(32767, 1), new Location(0, 0), new Location(16384, 1)}) {
+            patient.setLocation(location);
+            assertEquals(location, patient.getLocation());
+        }
+
+        for (int[] mapSize : new int[][] {{32769, 2}, {2, 32769}, {0, 49}, {49, -1}})
+            try {
+                mapSizeWorld(mapSize[0], mapSize[1]);
+                fail("Map size " + mapSize[0] + "x" + mapSize[1]);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+    }
+
+    private MCIResponseWorld mapSizeWorld(int mapX, int mapY) {
+        MCIResponseWorld world = (MCIResponseWorld) new MCIResponseScenario(MCIResponseScenario.SoSType.Acknowledged, 100, 4, 2, 1, mapX, mapY).getWorld();
+        world.setSeed(1);
+        return world;
+    }
+
+    @Test
+    public void patientStatusTest() throws Exception {
+        MCIResponseWorld world = (MCIResponseWorld) new MCIResponseScenario(MCIResponseScenario.SoSType.Acknowledged, 100, 4, 2, 1).getWorld();
+        world.setSeed(1);
+        world.reset();
+
+        // The patients indexed by status agree with a scan of the patients, in a run and in a fork of it
+        for (int t = 0; t <= 200; t += 20) {
+            Simulator.advance(world, t);
+            checkPatientStatus(world);
+        }
+        checkPatientStatus((MCIResponseWorld) world.fork(2));
+
+        world.reset();
+        assertEquals(100, world.getNumberOfPatients(Patient.Status.Trapped));
+        checkPatientStatus(world);
+    }
+
+    private void checkPatientStatus(MCIResponseWorld world) {
+        for (Patient.Status status : Patient.Status.values()) {
+            int count = 0;
+            for (Patient patient : world.patients)
+                if (patient.getStatus() == status)
+                    count++;
+
+            assertEquals(count, world.getNumberOfPatients(status));
+        }
+
+        Set<Patient> pulledoutPatients = new HashSet<Patient>();
+        for (int x = 0; x < world.getMapX(); x++)
+            for (int y = 0; y < world.getMapY(); y++) {
+                Location location = new Location(x, y);
+
+                ArrayList<Patient> trappedPatients = new ArrayList<Patient>();
+                for (Patient patient : world.patientsMap.getValue(location))
+                    if (patient.getStatus() == Patient.Status.Trapped)
+                        trappedPatients.add(patient);
+                    else if (patient.getStatus() == Patient.Status.Pulledout)
+                        assertTrue(world.getPulledoutPatients(location).contains(patient));
+
+                assertEquals(trappedPatients, world.getTrappedPatients(location));
+                assertEquals(trappedPatients.size(), world.getNumberOfTrappedPatient(location));
+                assertEquals(trappedPatients.isEmpty() ? null : trappedPatients.get(0), world.getTrappedPatient(location));
+                pulledoutPatients.addAll(world.getPulledoutPatients(location));
+            }
+        assertEquals(pulledoutPatients, world.getPulledoutPatients());
+    }
+
+    @Test
+    public void remapTest() throws Exception {
+        MCIResponseWorld world = (MCIResponseWorld) new MCIResponseScenario(MCIResponseScenario.SoSType.Acknowledged, 100, 4, 2, 1).getWorld();
+        world.setSeed(1);
+        world.reset();
+        MCIResponseWorld forked = (MCIResponseWorld) world.fork(2);
+
+        Patient patient = world.patients.get(7);
+        Message message = new Message();
+        message.sender = "ControlTower";
+        message.put(MessageKeys.PATIENT, patient);
+        message.put(MessageKeys.CAPACITY, 3);
+
+        // A message copied into a fork refers to the patients of the fork
+        Message copied = new Message(message);
+        copied.remap(forked);
+
+        assertSame(forked.patients.get(7), copied.get(MessageKeys.PATIENT));
+        assertNotSame(patient, copied.get(MessageKeys.PATIENT));
+        assertEquals(3, (int) copied.get(MessageKeys.CAPACITY));
+        assertEquals("ControlTower", copied.sender);
+        assertSame(patient, message.get(MessageKeys.PATIENT));
+    }
+
+    private int send(MCIResponseWorld world, String sender, String receiver, Location location) {
+        Message message = new Message();
+        message.sender = sender;
+        message.receiver = receiver;
+        message.location = location;
+        message.purpose = Message.Purpose.Delivery;
+
+        int messageCnt = world.messageCnt;
+        world.sendMessage(message);
+        return world.messageCnt - messageCnt;
+    }
+}
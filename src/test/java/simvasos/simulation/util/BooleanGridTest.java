@@ -0,0 +1,177 @@
+package simvasos.simulation.util;
+
+import org.junit.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BooleanGridTest {
+    @Test
+    public void mergeTest() throws Exception {
+        BooleanGrid a = new BooleanGrid(49, 49);
+        BooleanGrid b = new BooleanGrid(49, 49);
+
+        a.setValue(0, 0, true);
+        a.setValue(48, 48, true);
+        b.setValue(1, 20, true); // Another word than (0, 0)
+        b.setValue(48, 48, true);
+
+        BooleanGrid or = new BooleanGrid(a);
+        or.or(b);
+        assertEquals(3, or.cardinality());
+        assertTrue(or.getValue(0, 0) && or.getValue(1, 20) && or.getValue(48, 48));
+
+        BooleanGrid and = new BooleanGrid(a);
+        and.and(b);
+        assertEquals(1, and.cardinality());
+        assertTrue(and.getValue(48, 48));
+
+        BooleanGrid andNot = new BooleanGrid(a);
+        andNot.andNot(b);
+        assertEquals(1, andNot.cardinality());
+        assertTrue(andNot.getValue(0, 0));
+
+        a.setValue(0, 0, false);
+        assertFalse(a.getValue(0, 0));
+        assertEquals(and, a);
+    }
+
+    @Test
+    public void nextCellTest() throws Exception {
+        BooleanGrid grid = new BooleanGrid(3, 30); // 90 cells, so the last word is partly used
+
+        assertEquals(-1, grid.nextSetCell(0));
+        assertEquals(0, grid.nextClearCell(0));
+
+        grid.setValue(2, 29, true); // The last cell
+        grid.setValue(1, 3, true);
+        assertEquals(grid.getCell(1, 3), grid.nextSetCell(0));
+        assertEquals(grid.getCell(2, 29), grid.nextSetCell(grid.getCell(1, 3) + 1));
+        assertEquals(-1, grid.nextSetCell(grid.getCell(2, 29) + 1));
+
+        // Clear cells are visited in x-major order, and none past the last cell
+        for (int x = 0; x < 3; x++)
+            for (int y = 0; y < 30; y++)
+                grid.setValue(x, y, true);
+        assertEquals(90, grid.cardinality());
+        assertEquals(-1, grid.nextClearCell(0));
+
+        grid.setValue(0, 29, false);
+        int cell = grid.nextClearCell(0);
+        assertEquals(0, grid.getX(cell));
+        assertEquals(29, grid.getY(cell));
+        assertEquals(-1, grid.nextClearCell(cell + 1));
+
+        grid.clear();
+        assertEquals(0, grid.cardinality());
+    }
+
+    @Test
+    public void pageTest() throws Exception {
+        // Over many pages, only some of them in use, the grid agrees with a BitSet of its cells
+        int xSize = 300, ySize = 301;
+        Random random = new Random(1);
+
+        BooleanGrid a = new BooleanGrid(xSize, ySize), b = new BooleanGrid(xSize, ySize);
+        BitSet aBits = new BitSet(), bBits = new BitSet();
+        for (int i = 0; i < 200; i++) {
+            int x = random.nextInt(xSize / 3), y = random.nextInt(ySize); // The first third of the map only
+            a.setValue(x, y, true);
+            aBits.set(a.getCell(x, y));
+
+            x = random.nextInt(xSize);
+            b.setValue(x, y, true);
+            bBits.set(b.getCell(x, y));
+        }
+        assertTrue(a.getPageCount() < (xSize * ySize / 64 + 63) / 64);
+
+        BooleanGrid or = new BooleanGrid(a);
+        or.or(b);
+        BitSet orBits = (BitSet) aBits.clone();
+        orBits.or(bBits);
+        assertGrid(orBits, or);
+
+        BooleanGrid and = new BooleanGrid(a);
+        and.and(b);
+        BitSet andBits = (BitSet) aBits.clone();
+        andBits.and(bBits);
+        assertGrid(andBits, and);
+
+        BooleanGrid andNot = new BooleanGrid(b);
+        andNot.andNot(a);
+        BitSet andNotBits = (BitSet) bBits.clone();
+        andNotBits.andNot(aBits);
+        assertGrid(andNotBits, andNot);
+
+        BooleanGrid copy = new BooleanGrid(xSize, ySize);
+        copy.setValue(xSize - 1, ySize - 1, true); // A page the copied grid may not have
+        copy.copyFrom(a);
+        assertGrid(aBits, copy);
+        assertEquals(a, copy);
+        assertEquals(a.hashCode(), copy.hashCode());
+
+        a.clear();
+        assertEquals(0, a.getPageCount());
+        assertEquals(new BooleanGrid(xSize, ySize), a);
+    }
+
+    private void assertGrid(BitSet bits, BooleanGrid grid) {
+        assertEquals(bits.cardinality(), grid.cardinality());
+
+        int cell = grid.nextSetCell(0);
+        for (int bit = bits.nextSetBit(0); bit >= 0; bit = bits.nextSetBit(bit + 1)) {
+            assertEquals(bit, cell);
+            cell = grid.nextSetCell(cell + 1);
+        }
+        assertEquals(-1, cell);
+
+        cell = grid.nextClearCell(0);
+        for (int bit = bits.nextClearBit(0); bit < 1000; bit = bits.nextClearBit(bit + 1)) {
+            assertEquals(bit, cell);
+            cell = grid.nextClearCell(cell + 1);
+        }
+    }
+
+    @Test
+    public void sizeLimitTest() throws Exception {
+        // Cells are numbered by an int; the largest grids still read and write their last cell
+        int xSize = 65536, ySize = 32767;
+
+        BooleanGrid booleanGrid = new BooleanGrid(xSize, ySize);
+        booleanGrid.setValue(xSize - 1, ySize - 1, true);
+        assertTrue(booleanGrid.getValue(xSize - 1, ySize - 1));
+        assertEquals(-1, booleanGrid.nextSetCell(booleanGrid.getCell(xSize - 1, ySize - 1) + 1));
+
+        IntGrid intGrid = new IntGrid(xSize, ySize);
+        intGrid.setValue(xSize - 1, ySize - 1, 7);
+        assertEquals(7, intGrid.getValue(xSize - 1, ySize - 1));
+
+        ObjectGrid<String> objectGrid = new ObjectGrid<String>(xSize, ySize);
+        objectGrid.setValue(xSize - 1, ySize - 1, "last");
+        assertEquals("last", objectGrid.getValue(xSize - 1, ySize - 1));
+
+        // Grids of more cells, or of a negative size, are rejected instead of overflowing
+        for (int[] size : new int[][] {{46341, 46341}, {65536, 32768}, {-1, 49}}) {
+            try {
+                new BooleanGrid(size[0], size[1]);
+                fail("BooleanGrid " + size[0] + "x" + size[1]);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+            try {
+                new IntGrid(size[0], size[1]);
+                fail("IntGrid " + size[0] + "x" + size[1]);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+            try {
+                new ObjectGrid<String>(size[0], size[1]);
+                fail("ObjectGrid " + size[0] + "x" + size[1]);
+            } catch (IllegalArgumentException e) {
+                // Expected
+            }
+        }
+    }
+}
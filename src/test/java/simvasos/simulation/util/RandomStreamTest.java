@@ -0,0 +1,44 @@
+package simvasos.simulation.util;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+public class RandomStreamTest {
+    @Test
+    public void sequenceTest() throws Exception {
+        // Same draws as SplittableRandom from the same seed
+        for (long seed : new long[] {0, 1, -7, Long.MAX_VALUE}) {
+            RandomStream stream = new RandomStream(seed);
+            SplittableRandom reference = new SplittableRandom(seed);
+
+            for (int i = 0; i < 1000; i++)
+                assertEquals(reference.nextLong(), stream.nextLong());
+        }
+
+        RandomStream stream = new RandomStream(3);
+        double[] draws = new double[100];
+        for (int i = 0; i < draws.length; i++)
+            draws[i] = i % 2 == 0 ? stream.nextGaussian() : stream.nextInt(8);
+
+        stream.setSeed(3);
+        for (int i = 0; i < draws.length; i++)
+            assertEquals(draws[i], i % 2 == 0 ? stream.nextGaussian() : stream.nextInt(8), 0);
+    }
+
+    @Test
+    public void deriveTest() throws Exception {
+        // Different keys under a seed, and the same key under different seeds, give different seeds
+        Set<Long> seeds = new HashSet<Long>();
+        for (long seed = 0; seed < 100; seed++)
+            for (long key = 0; key < 100; key++)
+                seeds.add(RandomStream.derive(seed, key));
+
+        assertEquals(100 * 100, seeds.size());
+        assertEquals(RandomStream.derive(42, 7), RandomStream.derive(42, 7));
+    }
+}
@@ -0,0 +1,62 @@
+package simvasos.simulation.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TargetIndexTest {
+    @Test
+    public void sameAsScanTest() throws Exception {
+        Random random = new Random(1);
+
+        for (int[] size : new int[][] {{49, 49}, {20, 37}, {1, 1}}) {
+            BooleanGrid visited = new BooleanGrid(size[0], size[1]);
+            IntGrid values = new IntGrid(size[0], size[1]);
+            for (int x = 0; x < size[0]; x++)
+                for (int y = 0; y < size[1]; y++)
+                    values.setValue(x, y, random.nextInt(6));
+
+            TargetIndex index = new TargetIndex(visited, values, 4);
+
+            // Cells are visited one by one and in bulk, then all are forgotten and the values change
+            for (int round = 0; round < 2; round++) {
+                while (true) {
+                    int x = random.nextInt(size[0]), y = random.nextInt(size[1]);
+                    int expected = scan(visited, values, 4, x, y);
+                    assertEquals(expected, index.findBest(x, y));
+
+                    if (expected < 0)
+                        break;
+
+                    visited.setValue(visited.getX(expected), visited.getY(expected), true);
+                    if (random.nextInt(10) == 0) {
+                        BooleanGrid other = new BooleanGrid(size[0], size[1]);
+                        other.setValue(random.nextInt(size[0]), random.nextInt(size[1]), true);
+                        visited.or(other);
+                    }
+                }
+
+                visited.clear();
+                values.setValue(0, 0, 100);
+            }
+        }
+    }
+
+    private static int scan(BooleanGrid visited, IntGrid values, int weight, int x, int y) {
+        int bestCell = -1;
+        int bestCost = Integer.MAX_VALUE;
+        for (int cx = 0; cx < visited.getXSize(); cx++)
+            for (int cy = 0; cy < visited.getYSize(); cy++)
+                if (!visited.getValue(cx, cy)) {
+                    int cost = Math.abs(x - cx) + Math.abs(y - cy) - weight * values.getValue(cx, cy);
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestCell = visited.getCell(cx, cy);
+                    }
+                }
+
+        return bestCell;
+    }
+}